@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Time from JVM launch to the first successful /api/alerts/health, for the plain
+# fat jar and for the fast-start layout (Spring AOT + CDS archive).
+#
+# Build first:  mvn -Pfast-start -DskipTests package
+# Usage:        scripts/startup-benchmark.sh [runs]
+#
+# MONGODB_URI and OPENAI_API_KEY must be set as for a normal start.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+BACKEND_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR=$(ls "$BACKEND_DIR"/target/aroundme-backend-*.jar | grep -v original | head -n 1)
+FAST_DIR="$BACKEND_DIR/target/fast-start"
+JAVA_OPTS="--add-modules jdk.incubator.vector -Dserver.port=$PORT"
+
+if [[ ! -f "$FAST_DIR/application.jsa" ]]; then
+    echo "No CDS archive in $FAST_DIR; run: mvn -Pfast-start -DskipTests package" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Launch the given command, poll health until it answers, print elapsed ms
+time_to_health() {
+    local start pid
+    start=$(now_ms)
+    "$@" >/dev/null 2>&1 &
+    pid=$!
+
+    until curl -fs "http://localhost:$PORT/api/alerts/health" >/dev/null 2>&1; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "startup failed" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+
+    echo $(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run_series() {
+    local label=$1
+    shift
+    local total=0 ms
+    for ((i = 1; i <= RUNS; i++)); do
+        ms=$(time_to_health "$@")
+        echo "  $label run $i: ${ms} ms"
+        total=$((total + ms))
+    done
+    echo "$label average: $((total / RUNS)) ms"
+}
+
+echo "Baseline (java -jar)"
+run_series baseline java $JAVA_OPTS -jar "$JAR"
+
+echo "Fast start (AOT + CDS)"
+cd "$FAST_DIR"
+run_series fast-start java $JAVA_OPTS -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+    -cp "BOOT-INF/classes:BOOT-INF/lib/*" com.aroundme.AroundMeApplication
@@ -0,0 +1,56 @@
+package com.aroundme.config;
+
+import com.aroundme.service.AdmissionControlService;
+import com.aroundme.service.AdmissionControlService.Admission;
+import com.aroundme.service.AdmissionControlService.EndpointClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies admission control to the alert API. Submissions are admitted in
+ * AlertController instead, where the category is known and emergency and
+ * safety reports can bypass the limits.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionControlService admissionControl;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return HttpMethod.OPTIONS.matches(request.getMethod())
+                || !path.startsWith("/api/alerts/")
+                || path.equals("/api/alerts/submit")
+                || path.equals("/api/alerts/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        EndpointClass endpoint = path.startsWith("/api/alerts/curated") ? EndpointClass.CURATED
+                : path.equals("/api/alerts/import") ? EndpointClass.SUBMIT
+                : EndpointClass.READ;
+
+        try (Admission admission = admissionControl.admit(endpoint, admissionControl.clientKey(request), false)) {
+            if (!admission.admitted()) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+                return;
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.aroundme.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import com.theokanning.openai.service.OpenAiService;
 
 import java.time.Duration;
@@ -13,7 +14,9 @@ public class OpenAIConfig {
     @Value("${openai.api.key}")
     private String apiKey;
     
+    // Retrofit/OkHttp setup is slow; build it on the first LLM call, not at startup
     @Bean
+    @Lazy
     public OpenAiService openAiService() {
         return new OpenAiService(apiKey, Duration.ofSeconds(60));
     }
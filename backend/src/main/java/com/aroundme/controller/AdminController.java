@@ -0,0 +1,110 @@
+package com.aroundme.controller;
+
+import com.aroundme.service.JfrRecordingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * Operational endpoints, enabled only when admin.token is set and called
+ * with a matching X-Admin-Token header.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final JfrRecordingService jfrRecordingService;
+
+    @Value("${admin.token:}")
+    private String adminToken;
+
+    @PostMapping("/jfr/start")
+    public ResponseEntity<String> startRecording(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token,
+            @RequestParam(defaultValue = "profile") String settings,
+            @RequestParam(defaultValue = "300") Long durationSeconds) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!settings.equals("default") && !settings.equals("profile")) {
+            return ResponseEntity.badRequest().body("settings must be 'default' or 'profile'");
+        }
+
+        try {
+            return jfrRecordingService.start(settings, durationSeconds)
+                    ? ResponseEntity.ok("Recording started")
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body("A recording is already running");
+        } catch (Exception e) {
+            log.error("Failed to start JFR recording", e);
+            return ResponseEntity.internalServerError().body("Could not start recording");
+        }
+    }
+
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<String> stopRecording(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return jfrRecordingService.stop()
+                ? ResponseEntity.ok("Recording stopped")
+                : ResponseEntity.status(HttpStatus.CONFLICT).body("No recording is running");
+    }
+
+    @GetMapping("/jfr/status")
+    public ResponseEntity<String> recordingStatus(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(jfrRecordingService.state());
+    }
+
+    @GetMapping("/jfr/download")
+    public ResponseEntity<InputStreamResource> downloadRecording(
+            @RequestHeader(value = "X-Admin-Token", required = false) String token) throws IOException {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Path file = jfrRecordingService.dump();
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Delete the temporary dump once it has been streamed
+        InputStream in = new FilterInputStream(Files.newInputStream(file)) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"aroundme.jfr\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .body(new InputStreamResource(in));
+    }
+
+    private boolean authorized(String token) {
+        return !adminToken.isBlank() && token != null
+                && MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,18 +1,33 @@
 package com.aroundme.controller;
 
+import com.aroundme.dto.AlertDeltaResponse;
+import com.aroundme.dto.AreaOverviewResponse;
+import com.aroundme.dto.CompactCuratedAlertsResponse;
 import com.aroundme.dto.CuratedAlertsResponse;
+import com.aroundme.dto.ImportReport;
 import com.aroundme.dto.MapAlertDTO;
 import com.aroundme.dto.SubmitAlertRequest;
+import com.aroundme.dto.TrendResponse;
 import com.aroundme.dto.UserContextRequest;
 import com.aroundme.model.Alert;
 import com.aroundme.model.AlertCategory;
+import com.aroundme.model.TrendGranularity;
+import com.aroundme.service.AdmissionControlService;
+import com.aroundme.service.AdmissionControlService.Admission;
+import com.aroundme.service.AlertImportService;
 import com.aroundme.service.AlertService;
+import com.aroundme.service.AlertTrendService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @Slf4j
@@ -21,28 +36,94 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AlertController {
     
+    private static final String ALERTS_VERSION = "X-Alerts-Version";
+
     private final AlertService alertService;
+    private final AlertTrendService alertTrendService;
+    private final AdmissionControlService admissionControl;
+    private final AlertImportService alertImportService;
 
     @PostMapping("/curated")
     public ResponseEntity<CuratedAlertsResponse> getCuratedAlerts(
-            @RequestBody @Valid UserContextRequest request) {
+            @RequestBody @Valid UserContextRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         log.info("Received request for curated alerts at: {}", request.getAddress());
         
+        // Nothing changed in the area since the client's copy: skip the pipeline
+        String etag = alertService.curatedETag(request, false);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
         CuratedAlertsResponse response = alertService.getCuratedAlerts(request);
         
-        return ResponseEntity.ok(response);
+        return withETag(etag, response.isDegraded()).body(response);
+    }
+    
+    /**
+     * Lean variant of /curated for mobile clients. Negotiates JSON or CBOR
+     * (Accept: application/cbor); both are gzip-compressed when large enough.
+     */
+    @PostMapping(value = "/curated/compact",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<CompactCuratedAlertsResponse> getCompactCuratedAlerts(
+            @RequestBody @Valid UserContextRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        
+        String etag = alertService.curatedETag(request, true);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        CompactCuratedAlertsResponse response = alertService.getCompactCuratedAlerts(request);
+        
+        return withETag(etag, response.isDegraded()).body(response);
     }
     
 
     @PostMapping("/submit")
-    public ResponseEntity<Alert> submitAlert(@RequestBody @Valid SubmitAlertRequest request) {
+    public ResponseEntity<Alert> submitAlert(
+            @RequestBody @Valid SubmitAlertRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
         
         log.info("New alert submission: {}", request.getTitle());
         
-        Alert createdAlert = alertService.submitAlert(request);
+        // Emergency and safety reports are always accepted
+        boolean priority = request.getCategory() == AlertCategory.EMERGENCY
+                || request.getCategory() == AlertCategory.SAFETY;
+        try (Admission admission = admissionControl.admit(
+                AdmissionControlService.EndpointClass.SUBMIT, admissionControl.clientKey(httpRequest), priority)) {
+            if (!admission.admitted()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()))
+                        .build();
+            }
+            
+            Alert createdAlert = alertService.submitAlert(request, idempotencyKey);
+            
+            return ResponseEntity.ok(createdAlert);
+        }
+    }
+
+    /**
+     * Bulk import of partner feeds, streamed line by line: NDJSON
+     * (application/x-ndjson) or CSV with a header row (text/csv).
+     * Returns per-line errors for records that failed validation or writing.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportReport> importAlerts(
+            HttpServletRequest httpRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IOException {
         
-        return ResponseEntity.ok(createdAlert);
+        // Media types are case-insensitive and may carry parameters (text/csv;charset=UTF-8)
+        MediaType contentType = MediaType.parseMediaType(httpRequest.getContentType());
+        AlertImportService.Format format = contentType.isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? AlertImportService.Format.CSV
+                : AlertImportService.Format.NDJSON;
+        
+        return ResponseEntity.ok(alertImportService.importAlerts(httpRequest.getInputStream(), format, idempotencyKey));
     }
 
     @GetMapping("/categories")
@@ -60,14 +141,82 @@ public class AlertController {
     public ResponseEntity<List<MapAlertDTO>> getMapAlerts(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
-            @RequestParam(defaultValue = "5") Double radiusKm
+            @RequestParam(defaultValue = "5") Double radiusKm,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         if (latitude == null || longitude == null) {
             return ResponseEntity.badRequest().body(List.of());
         }
 
-        return ResponseEntity.ok(
+        String version = alertService.mapVersion(latitude, longitude, radiusKm);
+        String etag = alertService.mapETag(version, latitude, longitude, radiusKm);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).header(ALERTS_VERSION, version).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).header(ALERTS_VERSION, version).body(
                 alertService.getMapAlerts(latitude, longitude, radiusKm)
         );
     }
+
+    /**
+     * Changes to the area's alerts since the X-Alerts-Version of a /map response
+     * or the version of an earlier delta. On fullResync, fetch /map again.
+     */
+    @GetMapping("/map/delta")
+    public ResponseEntity<AlertDeltaResponse> getMapDelta(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "5") Double radiusKm,
+            @RequestParam(required = false) String since
+    ) {
+        return ResponseEntity.ok(alertService.getMapDelta(latitude, longitude, radiusKm, since));
+    }
+
+    /**
+     * Quick "what's happening within R km": active alert counts by category and impact.
+     */
+    @GetMapping("/overview")
+    public ResponseEntity<AreaOverviewResponse> getAreaOverview(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "5") Double radiusKm
+    ) {
+        return ResponseEntity.ok(alertService.getAreaOverview(latitude, longitude, radiusKm));
+    }
+
+    /**
+     * Alert counts over time for a city, e.g. traffic in Vadodara this week vs last week.
+     * Reads only the alert_trends rollups.
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<TrendResponse> getTrends(
+            @RequestParam String city,
+            @RequestParam(required = false) AlertCategory category,
+            @RequestParam(defaultValue = "DAILY") TrendGranularity granularity,
+            @RequestParam(defaultValue = "7") Integer days
+    ) {
+        if (days < 1 || days > 366) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(alertTrendService.getTrends(city.trim(), category, granularity, days));
+    }
+
+    // A degraded response was ranked locally while the LLM was saturated. It must not be
+    // revalidated under the tag of the full response, so it goes out without one.
+    private static ResponseEntity.BodyBuilder withETag(String etag, boolean degraded) {
+        return degraded ? ResponseEntity.ok() : ResponseEntity.ok().eTag(etag);
+    }
+    
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String opaque = etag.substring(2); // compare weakly, ignoring W/
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(opaque) || tag.equals("W/" + opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
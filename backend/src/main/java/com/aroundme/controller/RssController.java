@@ -2,6 +2,7 @@ package com.aroundme.controller;
 
 import com.aroundme.service.RssIngestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,11 +11,12 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class RssController {
 
-    private final RssIngestService rssIngestService;
+    // Lazy: RSS ingestion is optional and only wired up on the first ingest call
+    private final ObjectProvider<RssIngestService> rssIngestService;
 
     @PostMapping("/ingest")
     public ResponseEntity<String> ingestRss() {
-        int count = rssIngestService.ingest();
+        int count = rssIngestService.getObject().ingest();
         return ResponseEntity.ok("RSS ingestion completed. Alerts added: " + count);
     }
 }
@@ -0,0 +1,17 @@
+package com.aroundme.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertDeltaResponse {
+    private String version;          // pass back as since on the next call
+    private boolean fullResync;      // since is unknown or too old: refetch /map
+    private List<MapAlertDTO> upserted;
+    private List<String> removedIds; // expired, deactivated or moved out of the area
+}
@@ -0,0 +1,22 @@
+package com.aroundme.dto;
+
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AreaOverviewResponse {
+    private Double latitude;
+    private Double longitude;
+    private Double radiusKm;
+    private Integer totalActiveAlerts;
+    private Map<AlertCategory, Integer> byCategory;
+    private Map<ImpactLevel, Integer> byImpact;
+    private Long version; // changes whenever the counts may have changed
+}
@@ -0,0 +1,25 @@
+package com.aroundme.dto;
+
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactAlertDTO {
+    private String id;
+    private String title;
+    private String summary; // whyItMatters or shortened description
+    private AlertCategory category;
+    private ImpactLevel impact;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+    private Double relevanceScore;
+    private Integer reportCount;
+}
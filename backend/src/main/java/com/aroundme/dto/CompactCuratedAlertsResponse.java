@@ -0,0 +1,23 @@
+package com.aroundme.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactCuratedAlertsResponse {
+    
+    private List<CompactAlertDTO> alerts;
+    private String aiSummary;
+    private int totalAlertsAnalyzed;
+    private int relevantAlertsReturned;
+    
+    // Served by the local fallback while the LLM was saturated; not revalidated with an ETag
+    @JsonIgnore
+    private boolean degraded;
+}
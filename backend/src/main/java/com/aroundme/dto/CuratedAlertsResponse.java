@@ -1,6 +1,7 @@
 package com.aroundme.dto;
 
 import com.aroundme.model.Alert;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +17,8 @@ public class CuratedAlertsResponse {
     private String aiSummary;
     private int totalAlertsAnalyzed;
     private int relevantAlertsReturned;
+    
+    // Served by the local fallback while the LLM was saturated; not revalidated with an ETag
+    @JsonIgnore
+    private boolean degraded;
 }
@@ -0,0 +1,27 @@
+package com.aroundme.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportReport {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+
+    private long lines;
+    private long imported;
+    private long failed;
+    private List<LineError> errors = new ArrayList<>();
+    private boolean errorsTruncated; // more failures than errors lists
+}
@@ -14,5 +14,7 @@ public class MapAlertDTO {
     private ImpactLevel impact;
     private String title;
     private String summary; // use whyItMatters or description
+    private Integer reportCount;
+    private String id;
 }
 
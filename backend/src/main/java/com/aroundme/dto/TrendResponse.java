@@ -0,0 +1,39 @@
+package com.aroundme.dto;
+
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.TrendGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendResponse {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime bucketStart;
+        private long alerts;
+        private long reports;
+        private long high;
+        private long medium;
+        private long low;
+        private long info;
+    }
+
+    private String city;
+    private AlertCategory category; // null = all categories
+    private TrendGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Point> buckets;
+    private long totalAlerts;
+    private long previousPeriodAlerts; // same length, immediately before from
+    private Double changePercent;      // null when the previous period had no alerts
+}
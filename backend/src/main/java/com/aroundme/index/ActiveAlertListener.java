@@ -0,0 +1,22 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+
+/**
+ * Callback for in-memory structures derived from the active alert set.
+ * Invoked synchronously by ActiveAlertStore while it holds its write lock,
+ * once per changed alert (including changes found by a reload), so
+ * implementations must be quick and must not call back into the store's writes.
+ */
+public interface ActiveAlertListener {
+
+    /**
+     * An alert became active or changed. previous is null for a new alert.
+     */
+    void onUpsert(Alert previous, Alert current);
+
+    /**
+     * An alert is no longer active.
+     */
+    void onRemove(Alert previous);
+}
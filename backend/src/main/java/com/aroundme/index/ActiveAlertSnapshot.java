@@ -0,0 +1,337 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable columnar view of the active alert set.
+ * Rows are sorted by latitude so a radius query only touches the latitude band
+ * of its bounding box; coordinates are kept as primitive radians with cached cosines.
+ */
+public final class ActiveAlertSnapshot {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    public static final int ALL_CATEGORIES = -1;
+
+    // Equirectangular distances drift slightly from haversine; widen the fast pass
+    // and let the exact check settle the boundary
+    private static final double SCAN_SLACK = 1.01;
+
+    private static final boolean VECTOR_API =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static final AlertCategory[] CATEGORIES = AlertCategory.values();
+    private static final ImpactLevel[] IMPACTS = ImpactLevel.values();
+
+    private static final ActiveAlertSnapshot EMPTY = new ActiveAlertSnapshot(new Alert[0]);
+
+    private final Alert[] alerts;
+    private final double[] latRad;
+    private final double[] lonRad;
+    private final double[] cosLat;
+    private final byte[] category;
+    private final byte[] impact;
+    private final Map<String, Integer> rowById;
+
+    private ActiveAlertSnapshot(Alert[] sortedAlerts) {
+        int n = sortedAlerts.length;
+        this.alerts = sortedAlerts;
+        this.latRad = new double[n];
+        this.lonRad = new double[n];
+        this.cosLat = new double[n];
+        this.category = new byte[n];
+        this.impact = new byte[n];
+        this.rowById = new HashMap<>(Math.max(16, n * 2));
+
+        for (int i = 0; i < n; i++) {
+            Alert alert = sortedAlerts[i];
+            latRad[i] = Math.toRadians(alert.getLocation().getLatitude());
+            lonRad[i] = Math.toRadians(alert.getLocation().getLongitude());
+            cosLat[i] = Math.cos(latRad[i]);
+            category[i] = alert.getCategory() != null ? (byte) alert.getCategory().ordinal() : -1;
+            impact[i] = alert.getImpact() != null ? (byte) alert.getImpact().ordinal() : -1;
+            if (alert.getId() != null) {
+                rowById.put(alert.getId(), i);
+            }
+        }
+    }
+
+    private ActiveAlertSnapshot(Alert[] alerts, double[] latRad, double[] lonRad, double[] cosLat,
+                                byte[] category, byte[] impact, Map<String, Integer> rowById) {
+        this.alerts = alerts;
+        this.latRad = latRad;
+        this.lonRad = lonRad;
+        this.cosLat = cosLat;
+        this.category = category;
+        this.impact = impact;
+        this.rowById = rowById;
+    }
+
+    public static ActiveAlertSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a snapshot from loaded alerts. Alerts without coordinates are skipped,
+     * and a later alert with the same id replaces an earlier one.
+     */
+    public static ActiveAlertSnapshot of(Collection<Alert> source) {
+        Map<Object, Alert> unique = new LinkedHashMap<>();
+        for (Alert alert : source) {
+            if (!hasCoordinates(alert)) continue;
+            unique.put(alert.getId() != null ? alert.getId() : new Object(), alert);
+        }
+
+        Alert[] sorted = unique.values().toArray(new Alert[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(a -> a.getLocation().getLatitude()));
+        return new ActiveAlertSnapshot(sorted);
+    }
+
+    public ActiveAlertSnapshot withUpsert(Alert alert) {
+        if (!hasCoordinates(alert)) {
+            return alert.getId() != null ? without(alert.getId()) : this;
+        }
+
+        Integer existing = alert.getId() != null ? rowById.get(alert.getId()) : null;
+        ActiveAlertSnapshot base = existing != null ? withoutRow(existing) : this;
+        return base.withRow(base.lowerBound(Math.toRadians(alert.getLocation().getLatitude())), alert);
+    }
+
+    /**
+     * One copy for a whole batch instead of one per alert.
+     */
+    public ActiveAlertSnapshot withUpsertAll(Collection<Alert> batch) {
+        Map<Object, Alert> merged = new LinkedHashMap<>();
+        for (Alert alert : alerts) {
+            merged.put(alert.getId() != null ? alert.getId() : new Object(), alert);
+        }
+        for (Alert alert : batch) {
+            Object key = alert.getId() != null ? alert.getId() : new Object();
+            if (hasCoordinates(alert)) {
+                merged.put(key, alert);
+            } else {
+                merged.remove(key);
+            }
+        }
+        return of(merged.values());
+    }
+
+    public ActiveAlertSnapshot without(String id) {
+        Integer row = rowById.get(id);
+        return row != null ? withoutRow(row) : this;
+    }
+
+    /**
+     * Copy with the alert inserted at row; the columns are shifted, not rebuilt.
+     */
+    private ActiveAlertSnapshot withRow(int row, Alert alert) {
+        int n = alerts.length;
+        double lat = Math.toRadians(alert.getLocation().getLatitude());
+
+        Alert[] nextAlerts = insert(alerts, new Alert[n + 1], row);
+        double[] nextLat = insert(latRad, new double[n + 1], row);
+        double[] nextLon = insert(lonRad, new double[n + 1], row);
+        double[] nextCos = insert(cosLat, new double[n + 1], row);
+        byte[] nextCategory = insert(category, new byte[n + 1], row);
+        byte[] nextImpact = insert(impact, new byte[n + 1], row);
+
+        nextAlerts[row] = alert;
+        nextLat[row] = lat;
+        nextLon[row] = Math.toRadians(alert.getLocation().getLongitude());
+        nextCos[row] = Math.cos(lat);
+        nextCategory[row] = alert.getCategory() != null ? (byte) alert.getCategory().ordinal() : -1;
+        nextImpact[row] = alert.getImpact() != null ? (byte) alert.getImpact().ordinal() : -1;
+
+        Map<String, Integer> nextRows = new HashMap<>(rowById);
+        for (int i = row; i <= n; i++) {
+            if (nextAlerts[i].getId() != null) {
+                nextRows.put(nextAlerts[i].getId(), i);
+            }
+        }
+        return new ActiveAlertSnapshot(nextAlerts, nextLat, nextLon, nextCos, nextCategory, nextImpact, nextRows);
+    }
+
+    private ActiveAlertSnapshot withoutRow(int row) {
+        int n = alerts.length;
+        Alert[] nextAlerts = remove(alerts, new Alert[n - 1], row);
+
+        Map<String, Integer> nextRows = new HashMap<>(rowById);
+        if (alerts[row].getId() != null) {
+            nextRows.remove(alerts[row].getId());
+        }
+        for (int i = row; i < n - 1; i++) {
+            if (nextAlerts[i].getId() != null) {
+                nextRows.put(nextAlerts[i].getId(), i);
+            }
+        }
+        return new ActiveAlertSnapshot(nextAlerts,
+                remove(latRad, new double[n - 1], row),
+                remove(lonRad, new double[n - 1], row),
+                remove(cosLat, new double[n - 1], row),
+                remove(category, new byte[n - 1], row),
+                remove(impact, new byte[n - 1], row),
+                nextRows);
+    }
+
+    // Column helpers: source is one of this snapshot's columns (alerts.length long)
+    private <T> T insert(T source, T target, int row) {
+        int n = alerts.length;
+        System.arraycopy(source, 0, target, 0, row);
+        System.arraycopy(source, row, target, row + 1, n - row);
+        return target;
+    }
+
+    private <T> T remove(T source, T target, int row) {
+        int n = alerts.length;
+        System.arraycopy(source, 0, target, 0, row);
+        System.arraycopy(source, row + 1, target, row, n - row - 1);
+        return target;
+    }
+
+    public int size() {
+        return alerts.length;
+    }
+
+    public Alert alert(int row) {
+        return alerts[row];
+    }
+
+    public AlertCategory category(int row) {
+        return category[row] >= 0 ? CATEGORIES[category[row]] : null;
+    }
+
+    public ImpactLevel impact(int row) {
+        return impact[row] >= 0 ? IMPACTS[impact[row]] : null;
+    }
+
+    public Alert findById(String id) {
+        Integer row = rowById.get(id);
+        return row != null ? alerts[row] : null;
+    }
+
+    public Collection<Alert> alerts() {
+        return Arrays.asList(alerts);
+    }
+
+    public static int categoryMask(Collection<AlertCategory> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return ALL_CATEGORIES;
+        }
+
+        int mask = 0;
+        for (AlertCategory c : categories) {
+            mask |= 1 << c.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Write the rows within radiusKm of the given point into out and return how many
+     * were written. out must hold at least size() entries. Does not allocate.
+     */
+    public int scan(double latitude, double longitude, double radiusKm, int categoryMask, int[] out) {
+        if (alerts.length == 0 || radiusKm < 0) {
+            return 0;
+        }
+
+        double lat0 = Math.toRadians(latitude);
+        double lon0 = Math.toRadians(longitude);
+        double cos0 = Math.cos(lat0);
+        double angle = radiusKm / EARTH_RADIUS_KM;
+
+        // Bounding box prefilter: rows are latitude sorted, so the band is contiguous
+        int from = lowerBound(lat0 - angle * SCAN_SLACK);
+        int to = lowerBound(lat0 + angle * SCAN_SLACK);
+        if (from >= to) {
+            return 0;
+        }
+
+        double maxAngleSq = angle * SCAN_SLACK * angle * SCAN_SLACK;
+        int candidates = VECTOR_API
+                ? VectorDistanceKernel.scan(latRad, lonRad, cosLat, from, to, lat0, lon0, cos0, maxAngleSq, out)
+                : scanScalar(latRad, lonRad, cosLat, from, to, lat0, lon0, cos0, maxAngleSq, out, 0);
+
+        // Exact haversine and category check on the few survivors, compacted in place
+        double maxHaversine = Math.pow(Math.sin(Math.min(angle, Math.PI) / 2), 2);
+        int hits = 0;
+        for (int i = 0; i < candidates; i++) {
+            int row = out[i];
+            if (!matchesCategory(category[row], categoryMask)) continue;
+            if (haversineTerm(row, lat0, lon0, cos0) <= maxHaversine) {
+                out[hits++] = row;
+            }
+        }
+        return hits;
+    }
+
+    public double distanceKm(int row, double latitude, double longitude) {
+        double lat0 = Math.toRadians(latitude);
+        double a = haversineTerm(row, lat0, Math.toRadians(longitude), Math.cos(lat0));
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    static int scanScalar(double[] latRad, double[] lonRad, double[] cosLat, int from, int to,
+                          double lat0, double lon0, double cos0, double maxAngleSq, int[] out, int outPos) {
+        int n = outPos;
+        for (int i = from; i < to; i++) {
+            double dLat = latRad[i] - lat0;
+            double dLon = Math.abs(lonRad[i] - lon0);
+            dLon = Math.min(dLon, 2 * Math.PI - dLon);
+            double x = dLon * (cosLat[i] + cos0) * 0.5;
+            if (x * x + dLat * dLat <= maxAngleSq) {
+                out[n++] = i;
+            }
+        }
+        return n - outPos;
+    }
+
+    private double haversineTerm(int row, double lat0, double lon0, double cos0) {
+        double sinLat = Math.sin((latRad[row] - lat0) / 2);
+        double sinLon = Math.sin((lonRad[row] - lon0) / 2);
+        return sinLat * sinLat + cos0 * cosLat[row] * sinLon * sinLon;
+    }
+
+    private int lowerBound(double lat) {
+        int lo = 0;
+        int hi = latRad.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (latRad[mid] < lat) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean matchesCategory(byte category, int mask) {
+        return mask == ALL_CATEGORIES || (category >= 0 && (mask & (1 << category)) != 0);
+    }
+
+    private static boolean hasCoordinates(Alert alert) {
+        return alert.getLocation() != null
+                && alert.getLocation().getLatitude() != null
+                && alert.getLocation().getLongitude() != null;
+    }
+}
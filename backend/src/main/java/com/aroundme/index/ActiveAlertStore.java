@@ -0,0 +1,347 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.repository.AlertRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current ActiveAlertSnapshot and swaps it copy-on-write.
+ * Reads are lock-free; writes are serialized and replayed over a reload that
+ * was already in flight so they are not lost when it lands.
+ * Every change stamps the GeoGrid cells it touches with the next value of a
+ * global sequence, so each area has a monotonic version, and is passed on
+ * to the registered ActiveAlertListener beans.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActiveAlertStore {
+
+    private final AlertRepository alertRepository;
+    private final ObjectProvider<ActiveAlertListener> listeners;
+
+    private final Object writeLock = new Object();
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[256]);
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Identifies this store's sequence, which restarts from zero with the process
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    private final ConcurrentHashMap<Long, Long> cellVersions = new ConcurrentHashMap<>();
+
+    /**
+     * One entry of the change log: the alert before and after (null when it
+     * was added or removed), stamped with the sequence value of the change.
+     */
+    public record Change(long sequence, Alert previous, Alert current) {
+    }
+
+    /**
+     * Changes after a version, or full when the log no longer reaches back that far.
+     */
+    public record Changes(List<Change> changes, boolean complete) {
+    }
+
+    @Value("${alerts.delta.max-changes:20000}")
+    private int maxChanges;
+
+    private final ArrayDeque<Change> changeLog = new ArrayDeque<>();
+    // Highest sequence that has been dropped from the change log
+    private long truncatedAt;
+
+    private final AtomicBoolean skipScheduledReload = new AtomicBoolean();
+
+    private volatile ActiveAlertSnapshot snapshot = ActiveAlertSnapshot.empty();
+    private List<UnaryOperator<ActiveAlertSnapshot>> writesDuringReload;
+
+    @Scheduled(fixedDelayString = "${alerts.snapshot.refresh-interval-ms:60000}")
+    public void scheduledReload() {
+        // A restored snapshot is caught up separately; the next periodic reload reconciles it
+        if (skipScheduledReload.getAndSet(false)) return;
+        reload();
+    }
+
+    /**
+     * Replace the snapshot with the active alerts in Mongo. Returns false if
+     * the load failed or another reload was already running.
+     */
+    public boolean reload() {
+        synchronized (writeLock) {
+            if (writesDuringReload != null) return false;
+            writesDuringReload = new ArrayList<>();
+        }
+
+        try {
+            ActiveAlertSnapshot fresh = ActiveAlertSnapshot.of(alertRepository.findActiveForSnapshot());
+
+            synchronized (writeLock) {
+                for (UnaryOperator<ActiveAlertSnapshot> write : writesDuringReload) {
+                    fresh = write.apply(fresh);
+                }
+                touchChanged(snapshot, fresh);
+                snapshot = fresh;
+            }
+            log.debug("Active alert snapshot reloaded with {} alerts", fresh.size());
+            return true;
+
+        } catch (Exception e) {
+            log.warn("Failed to reload active alerts, keeping previous snapshot: {}", e.getMessage());
+            return false;
+        } finally {
+            synchronized (writeLock) {
+                writesDuringReload = null;
+            }
+        }
+    }
+
+    /**
+     * Start from alerts saved by a previous run, if nothing has been loaded yet.
+     * Skips the first scheduled reload; the caller is expected to catch up.
+     */
+    public boolean restore(Collection<Alert> alerts) {
+        ActiveAlertSnapshot restored = ActiveAlertSnapshot.of(alerts);
+        synchronized (writeLock) {
+            if (snapshot.size() > 0 || writesDuringReload != null) return false;
+
+            touchChanged(snapshot, restored);
+            snapshot = restored;
+            skipScheduledReload.set(true);
+        }
+        return true;
+    }
+
+    public ActiveAlertSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public void upsert(Alert alert) {
+        Alert stored = stripped(alert);
+        synchronized (writeLock) {
+            Alert previous = stored.getId() != null ? snapshot.findById(stored.getId()) : null;
+            if (previous != null && sameContent(previous, stored)) return;
+
+            apply(current -> current.withUpsert(stored));
+            changed(previous, stored);
+        }
+    }
+
+    /**
+     * Batch form of upsert that swaps the snapshot once, for bulk writes.
+     */
+    public void upsertAll(Collection<Alert> alerts) {
+        synchronized (writeLock) {
+            List<Alert> stored = new ArrayList<>(alerts.size());
+            List<Alert> previous = new ArrayList<>(alerts.size());
+            for (Alert alert : alerts) {
+                Alert next = stripped(alert);
+                Alert prev = next.getId() != null ? snapshot.findById(next.getId()) : null;
+                if (prev != null && sameContent(prev, next)) continue;
+                stored.add(next);
+                previous.add(prev);
+            }
+            if (stored.isEmpty()) return;
+
+            apply(current -> current.withUpsertAll(stored));
+            for (int i = 0; i < stored.size(); i++) {
+                changed(previous.get(i), stored.get(i));
+            }
+        }
+    }
+
+    public void remove(String id) {
+        synchronized (writeLock) {
+            Alert previous = snapshot.findById(id);
+            if (previous == null) return;
+
+            apply(current -> current.without(id));
+            changed(previous, null);
+        }
+    }
+
+    /**
+     * Global change sequence; the latest value stamped on any cell.
+     */
+    public long version() {
+        return sequence.get();
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public long cellVersion(long cell) {
+        return cellVersions.getOrDefault(cell, 0L);
+    }
+
+    /**
+     * Monotonic version of the alert set around a point: the latest change
+     * stamped on any cell covering the radius.
+     */
+    public long areaVersion(double latitude, double longitude, double radiusKm) {
+        long version = 0;
+        for (long cell : GeoGrid.cellsCovering(latitude, longitude, radiusKm)) {
+            version = Math.max(version, cellVersion(cell));
+        }
+        return version;
+    }
+
+    /**
+     * Logged changes with a sequence above since, oldest first. complete is
+     * false if changes after since have already been dropped from the log.
+     */
+    public Changes changesSince(long since) {
+        synchronized (changeLog) {
+            if (since < truncatedAt) {
+                return new Changes(List.of(), false);
+            }
+            List<Change> result = new ArrayList<>();
+            Iterator<Change> newestFirst = changeLog.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Change change = newestFirst.next();
+                if (change.sequence() <= since) break;
+                result.add(change);
+            }
+            return new Changes(result.reversed(), true);
+        }
+    }
+
+    public Set<Long> populatedCells() {
+        Set<Long> cells = new HashSet<>();
+        for (Alert alert : snapshot.alerts()) {
+            cells.add(GeoGrid.cellOf(alert.getLocation().getLatitude(), alert.getLocation().getLongitude()));
+        }
+        return cells;
+    }
+
+    /**
+     * Active alerts within radiusKm, as copies with distanceFromUser set so callers
+     * are free to annotate them per request.
+     */
+    public List<Alert> findWithin(double latitude, double longitude, double radiusKm,
+                                  Collection<AlertCategory> categories) {
+        ActiveAlertSnapshot current = snapshot;
+        int[] rows = scratch(current.size());
+        int hits = current.scan(latitude, longitude, radiusKm, ActiveAlertSnapshot.categoryMask(categories), rows);
+
+        List<Alert> result = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            Alert copy = current.alert(rows[i]).toBuilder().build();
+            copy.setDistanceFromUser(current.distanceKm(rows[i], latitude, longitude));
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private void apply(UnaryOperator<ActiveAlertSnapshot> write) {
+        synchronized (writeLock) {
+            snapshot = write.apply(snapshot);
+            if (writesDuringReload != null) {
+                writesDuringReload.add(write);
+            }
+        }
+    }
+
+    private void touchChanged(ActiveAlertSnapshot before, ActiveAlertSnapshot after) {
+        for (Alert alert : after.alerts()) {
+            Alert previous = alert.getId() != null ? before.findById(alert.getId()) : null;
+            if (previous == null || !sameContent(previous, alert)) {
+                changed(previous, alert);
+            }
+        }
+        for (Alert alert : before.alerts()) {
+            if (alert.getId() == null || after.findById(alert.getId()) == null) {
+                changed(alert, null);
+            }
+        }
+    }
+
+    private void changed(Alert previous, Alert current) {
+        // Logged before any cell shows the new version, so a delta that reports
+        // version s always finds change s in the log
+        long version = sequence.incrementAndGet();
+        log(version, previous, current);
+        touch(previous, version);
+        touch(current, version);
+
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                if (current != null) {
+                    listener.onUpsert(previous, current);
+                } else {
+                    listener.onRemove(previous);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Active alert listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+
+    private void log(long version, Alert previous, Alert current) {
+        synchronized (changeLog) {
+            changeLog.addLast(new Change(version, previous, current));
+            while (changeLog.size() > maxChanges) {
+                truncatedAt = changeLog.removeFirst().sequence();
+            }
+        }
+    }
+
+    private void touch(Alert alert, long version) {
+        if (alert == null || alert.getLocation() == null
+                || alert.getLocation().getLatitude() == null || alert.getLocation().getLongitude() == null) {
+            return;
+        }
+        long cell = GeoGrid.cellOf(alert.getLocation().getLatitude(), alert.getLocation().getLongitude());
+        cellVersions.put(cell, version);
+    }
+
+    // Submitter details and per-request AI fields are not kept in memory
+    private static Alert stripped(Alert alert) {
+        return alert.toBuilder()
+                .submittedBy(null)
+                .imageUrl(null)
+                .relevanceScore(null)
+                .whyItMatters(null)
+                .distanceFromUser(null)
+                .build();
+    }
+
+    static boolean sameContent(Alert a, Alert b) {
+        return Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && a.getCategory() == b.getCategory()
+                && a.getImpact() == b.getImpact()
+                && Objects.equals(a.getReportCount(), b.getReportCount())
+                && Objects.equals(a.getLastUpdated(), b.getLastUpdated())
+                && a.getLocation() != null && b.getLocation() != null
+                && Objects.equals(a.getLocation().getLatitude(), b.getLocation().getLatitude())
+                && Objects.equals(a.getLocation().getLongitude(), b.getLocation().getLongitude());
+    }
+
+    private int[] scratch(int size) {
+        int[] rows = scratch.get();
+        if (rows.length < size) {
+            rows = new int[Math.max(size, rows.length * 2)];
+            scratch.set(rows);
+        }
+        return rows;
+    }
+}
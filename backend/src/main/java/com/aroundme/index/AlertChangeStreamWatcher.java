@@ -0,0 +1,209 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps this node's ActiveAlertStore coherent with writes made by other
+ * instances by tailing a MongoDB change stream on the alerts collection
+ * (requires a replica set; a single-node one is enough).
+ * Inserts and updates of active alerts are upserted, deactivations and deletes
+ * removed; the store's change callbacks and cell versions then invalidate the
+ * derived indexes, aggregates and briefings. The resume token is kept in
+ * memory next to the state it describes, and saved with that state in the
+ * snapshot file (SnapshotPersistence), so a reconnect or a warm restart
+ * continues where it left off; without one, or when it has fallen off the
+ * oplog, a new stream is opened and the store fully reloaded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertChangeStreamWatcher {
+
+    private static final Set<Integer> HISTORY_LOST = Set.of(280, 286);
+
+    private final MongoTemplate mongoTemplate;
+    private final ActiveAlertStore activeAlertStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alerts.change-stream.enabled:false}")
+    private boolean enabled;
+
+    @Value("${alerts.change-stream.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private volatile boolean running;
+    // Position of the last change applied to this node's store
+    private volatile BsonDocument resumeToken;
+    // Store reflects the stream up to resumeToken (resumed, or reloaded after opening)
+    private volatile boolean synced;
+    private Thread worker;
+    private Counter applied;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+
+        applied = meterRegistry.counter("alerts.change_stream.events");
+        running = true;
+        worker = new Thread(this::run, "alert-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the store is a consistent base for resumeToken(), i.e. safe to snapshot.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public BsonDocument resumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Continue from a position saved with the state the store was restored
+     * from, instead of reloading. Must be called before the stream starts.
+     */
+    public void resumeFrom(BsonDocument token) {
+        if (worker == null) {
+            resumeToken = token;
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(5000);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            BsonDocument token = resumeToken;
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(token)) {
+                if (token == null) {
+                    // Stream is open, so nothing written from here on is missed by the reload
+                    if (!activeAlertStore.reload()) {
+                        throw new IllegalStateException("active alert reload failed");
+                    }
+                } else {
+                    log.info("Resuming alert change stream");
+                }
+                synced = true;
+                tail(cursor);
+
+            } catch (MongoCommandException e) {
+                if (HISTORY_LOST.contains(e.getErrorCode())) {
+                    log.warn("Change stream position is no longer in the oplog, reloading active alerts");
+                    resumeToken = null;
+                    synced = false;
+                } else {
+                    log.warn("Alert change stream failed: {}", e.getMessage());
+                    pause();
+                }
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Alert change stream failed: {}", e.getMessage());
+                    pause();
+                }
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument token) {
+        var stream = alerts().watch(List.of(Aggregates.match(
+                        Filters.in("operationType", "insert", "update", "replace", "delete"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (token != null) {
+            stream = stream.resumeAfter(token);
+        }
+        return stream.cursor();
+    }
+
+    private void tail(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        while (running) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change != null) {
+                apply(change);
+                applied.increment();
+            }
+
+            // Also advances while idle (post-batch token), keeping the position inside the oplog window
+            BsonDocument token = cursor.getResumeToken();
+            if (token != null) {
+                resumeToken = token;
+            }
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        String id = id(change.getDocumentKey());
+        if (id == null) return;
+
+        Document document = change.getFullDocument();
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                // Full document is null when the alert was deleted before the lookup
+                Alert alert = document != null ? mongoTemplate.getConverter().read(Alert.class, document) : null;
+                if (alert != null && alert.isActive() && alert.getLocation() != null) {
+                    activeAlertStore.upsert(alert);
+                } else {
+                    activeAlertStore.remove(id);
+                }
+            }
+            case DELETE -> activeAlertStore.remove(id);
+            default -> {
+            }
+        }
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return null;
+    }
+
+    private MongoCollection<Document> alerts() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Alert.class));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
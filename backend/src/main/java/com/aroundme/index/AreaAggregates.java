@@ -0,0 +1,95 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Materialized count of active alerts per GeoGrid cell, category and impact,
+ * maintained incrementally from ActiveAlertStore changes (submit, merge,
+ * ingest, expiry and reload diffs). Area queries sum the covered cells, so
+ * their cost depends on the radius only, not on the number of alerts.
+ * Alerts without a category count as OTHER, without an impact as LOW.
+ */
+@Component
+public class AreaAggregates implements ActiveAlertListener {
+
+    private static final AlertCategory[] CATEGORIES = AlertCategory.values();
+    private static final ImpactLevel[] IMPACTS = ImpactLevel.values();
+
+    /**
+     * Counts indexed [category.ordinal()][impact.ordinal()].
+     */
+    public record Counts(int[][] byCategoryAndImpact) {
+
+        public int total() {
+            int total = 0;
+            for (int[] row : byCategoryAndImpact) {
+                for (int n : row) total += n;
+            }
+            return total;
+        }
+
+        public int count(AlertCategory category) {
+            int total = 0;
+            for (int n : byCategoryAndImpact[category.ordinal()]) total += n;
+            return total;
+        }
+
+        public int count(ImpactLevel impact) {
+            int total = 0;
+            for (int[] row : byCategoryAndImpact) total += row[impact.ordinal()];
+            return total;
+        }
+    }
+
+    private final Map<Long, AtomicIntegerArray> cells = new ConcurrentHashMap<>();
+
+    @Override
+    public void onUpsert(Alert previous, Alert current) {
+        add(previous, -1);
+        add(current, 1);
+    }
+
+    @Override
+    public void onRemove(Alert previous) {
+        add(previous, -1);
+    }
+
+    /**
+     * Counts over the cells covering the circle. Cell granularity means alerts
+     * up to one cell (about 2 km) beyond the radius can be included.
+     */
+    public Counts around(double latitude, double longitude, double radiusKm) {
+        int[][] counts = new int[CATEGORIES.length][IMPACTS.length];
+        for (long cell : GeoGrid.cellsCovering(latitude, longitude, radiusKm)) {
+            AtomicIntegerArray cellCounts = cells.get(cell);
+            if (cellCounts == null) continue;
+            for (int i = 0; i < cellCounts.length(); i++) {
+                counts[i / IMPACTS.length][i % IMPACTS.length] += cellCounts.get(i);
+            }
+        }
+        return new Counts(counts);
+    }
+
+    private void add(Alert alert, int delta) {
+        if (alert == null || alert.getLocation() == null
+                || alert.getLocation().getLatitude() == null || alert.getLocation().getLongitude() == null) {
+            return;
+        }
+
+        long cell = GeoGrid.cellOf(alert.getLocation().getLatitude(), alert.getLocation().getLongitude());
+        AlertCategory category = alert.getCategory() != null ? alert.getCategory() : AlertCategory.OTHER;
+        ImpactLevel impact = alert.getImpact() != null ? alert.getImpact() : ImpactLevel.LOW;
+        int slot = category.ordinal() * IMPACTS.length + impact.ordinal();
+
+        // Writes are serialized by the store; empty cells are left in place and reused
+        cells.computeIfAbsent(cell, c -> new AtomicIntegerArray(CATEGORIES.length * IMPACTS.length))
+             .addAndGet(slot, delta);
+    }
+}
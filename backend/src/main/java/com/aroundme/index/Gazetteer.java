@@ -0,0 +1,180 @@
+package com.aroundme.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline place-name lookup over a bundled gazetteer (cities, localities,
+ * landmarks). Names are stored in a word-level trie, so resolving a text is a
+ * single left-to-right pass taking the longest name at each position; among
+ * the names found, the most specific place wins, and among equally specific
+ * ones the rightmost (addresses run from street to city).
+ * Entries flagged ambiguous (place names that are also common words or
+ * personal names) match in free text only after a locality cue such as
+ * "in Anand"; in location and address text they always match.
+ */
+@Slf4j
+@Component
+public class Gazetteer {
+
+    public enum PlaceType {
+        CITY, LOCALITY, LANDMARK
+    }
+
+    public record Place(String name, PlaceType type, double latitude, double longitude, String city,
+                        boolean ambiguous) {
+    }
+
+    private static final Set<String> LOCALITY_CUES = Set.of("in", "at", "near");
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>(4);
+        Place place;
+    }
+
+    @Value("${geo.gazetteer.file:gazetteer/places.tsv}")
+    private String file;
+
+    private final Node root = new Node();
+    private int places;
+
+    @PostConstruct
+    void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(file).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+
+                String[] columns = line.split("\t");
+                if (columns.length < 5) {
+                    log.warn("Skipping malformed gazetteer line: {}", line);
+                    continue;
+                }
+                String[] names = columns[0].split("\\|");
+                Place place = new Place(names[0].trim(),
+                        PlaceType.valueOf(columns[1].trim().toUpperCase(Locale.ROOT)),
+                        Double.parseDouble(columns[2].trim()),
+                        Double.parseDouble(columns[3].trim()),
+                        columns[4].trim(),
+                        columns.length > 5 && columns[5].trim().equalsIgnoreCase("ambiguous"));
+                for (String name : names) {
+                    insert(words(name), place);
+                }
+                places++;
+            }
+            log.info("Gazetteer loaded with {} places", places);
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load gazetteer {}, place lookups disabled: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Most specific place named in the first location text that names one, or null.
+     */
+    public Place resolve(String... locations) {
+        for (String text : locations) {
+            Place place = find(text, false);
+            if (place != null) return place;
+        }
+        return null;
+    }
+
+    /**
+     * Place for an address: a place named in the trailing part ("..., Anand")
+     * is the explicit city and wins over names earlier in the address.
+     */
+    public Place resolveAddress(String address) {
+        if (address == null || address.isBlank()) return null;
+
+        String last = address.substring(address.lastIndexOf(',') + 1);
+        return resolve(last, address);
+    }
+
+    /**
+     * Like resolve, for free text such as titles and descriptions, where
+     * ambiguous names need a locality cue.
+     */
+    public Place resolveInText(String... texts) {
+        for (String text : texts) {
+            Place place = find(text, true);
+            if (place != null) return place;
+        }
+        return null;
+    }
+
+    private Place find(String text, boolean freeText) {
+        if (text == null || text.isBlank()) return null;
+
+        List<String> words = words(text);
+        Place best = null;
+        int i = 0;
+        while (i < words.size()) {
+            Node node = root;
+            Place match = null;
+            int matchEnd = i;
+            for (int j = i; j < words.size(); j++) {
+                node = node.children.get(words.get(j));
+                if (node == null) break;
+                if (node.place != null) {
+                    match = node.place;
+                    matchEnd = j + 1;
+                }
+            }
+
+            if (match != null) {
+                boolean accepted = !freeText || !match.ambiguous()
+                        || (i > 0 && LOCALITY_CUES.contains(words.get(i - 1)));
+                if (accepted && (best == null || match.type().ordinal() >= best.type().ordinal())) {
+                    best = match;
+                }
+                i = matchEnd;
+            } else {
+                i++;
+            }
+        }
+        return best;
+    }
+
+    private void insert(List<String> words, Place place) {
+        if (words.isEmpty()) return;
+        Node node = root;
+        for (String word : words) {
+            node = node.children.computeIfAbsent(word, w -> new Node());
+        }
+        if (node.place == null) {
+            node.place = place;
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,64 @@
+package com.aroundme.index;
+
+/**
+ * Fixed lat/lng grid used to key per-area state (versions, briefings, aggregates).
+ * Cells are CELL_DEGREES on a side, roughly 2.2 km north-south; a cell id packs
+ * the row and column indexes into one long.
+ */
+public final class GeoGrid {
+
+    public static final double CELL_DEGREES = 0.02;
+
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * ActiveAlertSnapshot.EARTH_RADIUS_KM;
+
+    private GeoGrid() {
+    }
+
+    public static long cellOf(double latitude, double longitude) {
+        return pack(row(latitude), column(longitude));
+    }
+
+    /**
+     * Cells overlapping the bounding box of a circle, row by row.
+     */
+    public static long[] cellsCovering(double latitude, double longitude, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double cos = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double dLon = Math.min(radiusKm / (KM_PER_DEGREE * cos), 180);
+
+        int rowFrom = row(Math.max(latitude - dLat, -90));
+        int rowTo = row(Math.min(latitude + dLat, 90));
+        int colFrom = column(longitude - dLon);
+        int colTo = column(longitude + dLon);
+
+        long[] cells = new long[(rowTo - rowFrom + 1) * (colTo - colFrom + 1)];
+        int n = 0;
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = colFrom; c <= colTo; c++) {
+                cells[n++] = pack(r, c);
+            }
+        }
+        return cells;
+    }
+
+    public static double centerLatitude(long cell) {
+        return (int) (cell >> 32) * CELL_DEGREES - 90 + CELL_DEGREES / 2;
+    }
+
+    public static double centerLongitude(long cell) {
+        return (int) cell * CELL_DEGREES - 180 + CELL_DEGREES / 2;
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    // Columns are not wrapped at the antimeridian; city-scale queries never get near it
+    private static int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_DEGREES);
+    }
+
+    private static long pack(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
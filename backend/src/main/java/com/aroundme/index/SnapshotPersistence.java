@@ -0,0 +1,330 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+import com.aroundme.model.Location;
+import com.aroundme.repository.AlertRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves the active alert set to a compact binary file and restores it on
+ * startup, so a warm restart serves from memory within seconds instead of
+ * waiting for a full load from Mongo. The file is memory-mapped and decoded
+ * in one pass during startup; nothing there touches Mongo. Catching up runs
+ * once the application is ready: with change streams on, the watcher resumes
+ * from the position saved in the file; otherwise a background task upserts
+ * alerts changed since the file was written and drops those no longer active.
+ *
+ * Layout: magic, format version, saved-at, change-stream resume token (JSON),
+ * count, records, then a CRC32 of everything before it. Strings are length-prefixed UTF-8 (-1 for null),
+ * timestamps epoch seconds and nanos (Long.MIN_VALUE for null).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnapshotPersistence {
+
+    private static final int MAGIC = 0x414D534E; // "AMSN"
+    private static final int FORMAT = 2;
+    private static final int ID_BATCH = 5000;
+
+    private final ActiveAlertStore activeAlertStore;
+    private final AlertRepository alertRepository;
+    private final AlertChangeStreamWatcher changeStreamWatcher;
+
+    @Value("${alerts.snapshot.persist.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.snapshot.persist.file:data/active-alerts.snap}")
+    private String file;
+
+    @Value("${alerts.snapshot.persist.catch-up-slack-ms:60000}")
+    private long catchUpSlackMs;
+
+    @Value("${alerts.snapshot.persist.interval-ms:60000}")
+    private long retryDelayMs;
+
+    private long persistedVersion = -1;
+    private BsonDocument persistedToken;
+
+    // Restored state still waiting for its timestamp catch-up; not saved again until then
+    private volatile Saved pendingCatchUp;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    void restore() {
+        if (!enabled) return;
+
+        Path path = Path.of(file);
+        if (!Files.exists(path)) return;
+
+        long start = System.nanoTime();
+        Saved saved;
+        try {
+            saved = read(path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable alert snapshot {}: {}", path, e.getMessage());
+            return;
+        }
+
+        if (!activeAlertStore.restore(saved.alerts())) return;
+        log.info("Restored {} active alerts from {} in {} ms", saved.alerts().size(), path,
+                (System.nanoTime() - start) / 1_000_000);
+
+        if (changeStreamWatcher.isEnabled()) {
+            // Resumes from the saved position, or reloads if the file has none
+            changeStreamWatcher.resumeFrom(saved.resumeToken());
+        } else {
+            pendingCatchUp = saved;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startCatchUp() {
+        Saved saved = pendingCatchUp;
+        if (saved == null) return;
+
+        Thread thread = new Thread(() -> {
+            while (!stopped) {
+                if (catchUp(saved)) {
+                    pendingCatchUp = null;
+                    return;
+                }
+                try {
+                    Thread.sleep(retryDelayMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "alert-snapshot-catch-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.snapshot.persist.interval-ms:60000}",
+               initialDelayString = "${alerts.snapshot.persist.interval-ms:60000}")
+    public synchronized void persist() {
+        if (!enabled) return;
+
+        // Only save state that is consistent with what is written alongside it
+        if (pendingCatchUp != null) return;
+        if (changeStreamWatcher.isEnabled() && !changeStreamWatcher.isSynced()) return;
+
+        // Both taken before the alerts are read, so catching up from them covers writes made meanwhile
+        BsonDocument token = changeStreamWatcher.isEnabled() ? changeStreamWatcher.resumeToken() : null;
+        LocalDateTime savedAt = LocalDateTime.now();
+        long version = activeAlertStore.version();
+        // An idle stream still advances its token, which has to stay inside the oplog window
+        if (version == persistedVersion && Objects.equals(token, persistedToken)) return;
+
+        Collection<Alert> alerts = activeAlertStore.snapshot().alerts();
+        // Nothing loaded yet (e.g. Mongo unreachable): keep the previous file
+        if (alerts.isEmpty()) return;
+        try {
+            write(Path.of(file), savedAt, token, alerts);
+            persistedVersion = version;
+            persistedToken = token;
+            log.debug("Persisted {} active alerts to {}", alerts.size(), file);
+        } catch (IOException e) {
+            log.warn("Failed to persist alert snapshot: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        stopped = true;
+        persist();
+    }
+
+    private boolean catchUp(Saved saved) {
+        try {
+            LocalDateTime since = saved.savedAt().minus(Duration.ofMillis(catchUpSlackMs));
+            // Requests are already being served; skip alerts a live write has since updated
+            List<Alert> changed = alertRepository.findActiveChangedSince(since).stream()
+                    .filter(alert -> !newerInStore(alert))
+                    .toList();
+            activeAlertStore.upsertAll(changed);
+
+            // Alerts in the file that were deactivated or deleted since
+            List<String> ids = new ArrayList<>(saved.alerts().size());
+            saved.alerts().forEach(alert -> ids.add(alert.getId()));
+            Set<String> active = new HashSet<>();
+            for (int i = 0; i < ids.size(); i += ID_BATCH) {
+                alertRepository.findActiveIdsIn(ids.subList(i, Math.min(i + ID_BATCH, ids.size())))
+                        .forEach(alert -> active.add(alert.getId()));
+            }
+            int removed = 0;
+            for (String id : ids) {
+                if (!active.contains(id)) {
+                    activeAlertStore.remove(id);
+                    removed++;
+                }
+            }
+            log.info("Caught up restored snapshot: {} changed, {} no longer active", changed.size(), removed);
+            return true;
+
+        } catch (Exception e) {
+            // Keep serving the restored state and retry
+            log.warn("Could not catch up restored snapshot from Mongo: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean newerInStore(Alert alert) {
+        Alert stored = activeAlertStore.snapshot().findById(alert.getId());
+        return stored != null && stored.getLastUpdated() != null && alert.getLastUpdated() != null
+                && stored.getLastUpdated().isAfter(alert.getLastUpdated());
+    }
+
+    record Saved(LocalDateTime savedAt, BsonDocument resumeToken, List<Alert> alerts) {
+    }
+
+    static void write(Path path, LocalDateTime savedAt, BsonDocument token, Collection<Alert> alerts)
+            throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        List<Alert> located = alerts.stream().filter(alert -> alert.getLocation() != null).toList();
+        CRC32 crc = new CRC32();
+        try (BufferedOutputStream file = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            writeTime(out, savedAt);
+            writeString(out, token != null ? token.toJson() : null);
+            out.writeInt(located.size());
+            for (Alert alert : located) {
+                writeString(out, alert.getId());
+                writeString(out, alert.getTitle());
+                writeString(out, alert.getDescription());
+                out.writeByte(alert.getCategory() != null ? alert.getCategory().ordinal() : -1);
+                out.writeByte(alert.getImpact() != null ? alert.getImpact().ordinal() : -1);
+                out.writeDouble(alert.getLocation().getLatitude());
+                out.writeDouble(alert.getLocation().getLongitude());
+                writeString(out, alert.getLocation().getAddress());
+                writeString(out, alert.getLocation().getCity());
+                writeTime(out, alert.getTimestamp());
+                writeTime(out, alert.getLastUpdated());
+                out.writeInt(alert.getReportCount() != null ? alert.getReportCount() : -1);
+            }
+            out.flush();
+
+            // Checksum of everything above, outside the checked stream
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Saved read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int payload = buffer.limit() - Long.BYTES;
+            if (payload < 24) throw new IOException("truncated file");
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, payload));
+            if (crc.getValue() != buffer.getLong(payload)) throw new IOException("checksum mismatch");
+
+            if (buffer.getInt() != MAGIC) throw new IOException("not an alert snapshot");
+            if (buffer.getInt() != FORMAT) throw new IOException("unsupported format");
+            LocalDateTime savedAt = readTime(buffer);
+            String token = readString(buffer);
+
+            AlertCategory[] categories = AlertCategory.values();
+            ImpactLevel[] impacts = ImpactLevel.values();
+            int count = buffer.getInt();
+            List<Alert> alerts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Alert alert = new Alert();
+                alert.setId(readString(buffer));
+                alert.setTitle(readString(buffer));
+                alert.setDescription(readString(buffer));
+                byte category = buffer.get();
+                alert.setCategory(category >= 0 && category < categories.length ? categories[category] : null);
+                byte impact = buffer.get();
+                alert.setImpact(impact >= 0 && impact < impacts.length ? impacts[impact] : null);
+                double latitude = buffer.getDouble();
+                double longitude = buffer.getDouble();
+                String address = readString(buffer);
+                String city = readString(buffer);
+                alert.setLocation(new Location(latitude, longitude, address, city));
+                alert.setTimestamp(readTime(buffer));
+                alert.setLastUpdated(readTime(buffer));
+                int reportCount = buffer.getInt();
+                alert.setReportCount(reportCount >= 0 ? reportCount : null);
+                alert.setActive(true);
+                alerts.add(alert);
+            }
+            return new Saved(savedAt, token != null ? BsonDocument.parse(token) : null, alerts);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            out.writeLong(Long.MIN_VALUE);
+            out.writeInt(0);
+            return;
+        }
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
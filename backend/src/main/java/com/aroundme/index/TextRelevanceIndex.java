@@ -0,0 +1,150 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.util.TextTokens;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-JVM text relevance over the active alerts using hashed TF-IDF.
+ * Each alert's term vector (unigrams and bigrams hashed into DIMENSIONS buckets,
+ * log-scaled term frequency) is computed once when the alert enters the store;
+ * IDF comes from live document frequencies and is applied at query time.
+ * Scoring only ever covers the candidates already found by the geo scan, so
+ * no inverted index is kept.
+ */
+@Component
+public class TextRelevanceIndex implements ActiveAlertListener {
+
+    static final int DIMENSIONS = 1 << 18;
+
+    /**
+     * Sparse vector with bucket ids in ascending order.
+     */
+    public record TermVector(int[] terms, float[] weights) {
+
+        public boolean isEmpty() {
+            return terms.length == 0;
+        }
+    }
+
+    private final Map<String, TermVector> vectors = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray documentFrequency = new AtomicIntegerArray(DIMENSIONS);
+    private final AtomicInteger documents = new AtomicInteger();
+
+    @Override
+    public void onUpsert(Alert previous, Alert current) {
+        if (previous != null && !Objects.equals(previous.getId(), current.getId())) {
+            unindex(previous.getId());
+        }
+        if (current.getId() != null) {
+            index(current.getId(), vectorize(documentText(current)));
+        }
+    }
+
+    @Override
+    public void onRemove(Alert previous) {
+        unindex(previous.getId());
+    }
+
+    public TermVector vectorize(String text) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int feature : TextTokens.hashedNgrams(text, DIMENSIONS)) {
+            counts.merge(feature, 1, Integer::sum);
+        }
+
+        int[] terms = counts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        float[] weights = new float[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            weights[i] = (float) (1 + Math.log(counts.get(terms[i])));
+        }
+        return new TermVector(terms, weights);
+    }
+
+    /**
+     * Cosine similarity in [0, 1] between the query and the alert's indexed
+     * vector. Alerts not in the index (e.g. mock data) are vectorized on the fly.
+     */
+    public double score(TermVector query, Alert alert) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        TermVector doc = alert.getId() != null ? vectors.get(alert.getId()) : null;
+        if (doc == null) {
+            doc = vectorize(documentText(alert));
+        }
+        return cosine(query, doc);
+    }
+
+    private void index(String id, TermVector vector) {
+        unindex(id);
+        vectors.put(id, vector);
+        documents.incrementAndGet();
+        for (int term : vector.terms()) {
+            documentFrequency.incrementAndGet(term);
+        }
+    }
+
+    private void unindex(String id) {
+        if (id == null) return;
+        TermVector vector = vectors.remove(id);
+        if (vector == null) return;
+
+        documents.decrementAndGet();
+        for (int term : vector.terms()) {
+            documentFrequency.decrementAndGet(term);
+        }
+    }
+
+    private double cosine(TermVector a, TermVector b) {
+        double dot = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.terms().length && j < b.terms().length) {
+            int cmp = Integer.compare(a.terms()[i], b.terms()[j]);
+            if (cmp == 0) {
+                double idf = idf(a.terms()[i]);
+                dot += a.weights()[i] * b.weights()[j] * idf * idf;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dot == 0 ? 0 : dot / (norm(a) * norm(b));
+    }
+
+    private double norm(TermVector v) {
+        double sum = 0;
+        for (int i = 0; i < v.terms().length; i++) {
+            double w = v.weights()[i] * idf(v.terms()[i]);
+            sum += w * w;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private double idf(int term) {
+        return Math.log((documents.get() + 1.0) / (documentFrequency.get(term) + 1.0)) + 1;
+    }
+
+    private static String documentText(Alert alert) {
+        StringBuilder text = new StringBuilder();
+        text.append(Objects.toString(alert.getTitle(), "")).append(' ')
+            .append(Objects.toString(alert.getDescription(), ""));
+        if (alert.getLocation() != null && alert.getLocation().getAddress() != null) {
+            text.append(' ').append(alert.getLocation().getAddress());
+        }
+        if (alert.getCategory() != null) {
+            text.append(' ').append(alert.getCategory().name().replace('_', ' '));
+        }
+        return text.toString();
+    }
+}
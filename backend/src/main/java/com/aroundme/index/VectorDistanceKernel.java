@@ -0,0 +1,46 @@
+package com.aroundme.index;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD equirectangular pass over the snapshot columns.
+ * Only loaded when the jdk.incubator.vector module is present at runtime;
+ * ActiveAlertSnapshot falls back to its scalar loop otherwise.
+ */
+final class VectorDistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private VectorDistanceKernel() {
+    }
+
+    static int scan(double[] latRad, double[] lonRad, double[] cosLat, int from, int to,
+                    double lat0, double lon0, double cos0, double maxAngleSq, int[] out) {
+        int n = 0;
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector dLat = DoubleVector.fromArray(SPECIES, latRad, i).sub(lat0);
+            DoubleVector dLon = DoubleVector.fromArray(SPECIES, lonRad, i).sub(lon0).abs();
+            dLon = dLon.min(dLon.neg().add(TWO_PI)); // shortest way round the antimeridian
+
+            DoubleVector x = DoubleVector.fromArray(SPECIES, cosLat, i).add(cos0).mul(0.5).mul(dLon);
+            DoubleVector distSq = x.fma(x, dLat.mul(dLat));
+
+            VectorMask<Double> hit = distSq.compare(VectorOperators.LE, maxAngleSq);
+            long bits = hit.toLong();
+            while (bits != 0) {
+                out[n++] = i + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+
+        return n + ActiveAlertSnapshot.scanScalar(latRad, lonRad, cosLat, i, to, lat0, lon0, cos0, maxAngleSq,
+                out, n);
+    }
+}
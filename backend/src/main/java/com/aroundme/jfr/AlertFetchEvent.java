@@ -0,0 +1,22 @@
+package com.aroundme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.aroundme.AlertFetch")
+@Label("Alert Fetch")
+@Description("Alerts loaded from MongoDB or generated as demo data for a request")
+@Category({"AroundMe", "Alert Pipeline"})
+@StackTrace(false)
+public class AlertFetchEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Alerts")
+    public int alerts;
+}
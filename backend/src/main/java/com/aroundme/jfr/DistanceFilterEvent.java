@@ -0,0 +1,28 @@
+package com.aroundme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.aroundme.DistanceFilter")
+@Label("Distance Filter")
+@Description("Radius filtering of candidate alerts")
+@Category({"AroundMe", "Alert Pipeline"})
+@StackTrace(false)
+public class DistanceFilterEvent extends Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Candidates")
+    public int candidates;
+
+    @Label("Matched")
+    public int matched;
+
+    @Label("Radius (km)")
+    public double radiusKm;
+}
@@ -0,0 +1,31 @@
+package com.aroundme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.aroundme.OpenAICall")
+@Label("OpenAI Call")
+@Description("Chat completion request to OpenAI")
+@Category({"AroundMe", "Alert Pipeline"})
+@StackTrace(false)
+public class OpenAICallEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Prompt Tokens")
+    public long promptTokens;
+
+    @Label("Completion Tokens")
+    public long completionTokens;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,25 @@
+package com.aroundme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.aroundme.PromptBuild")
+@Label("Prompt Build")
+@Description("Construction of an LLM prompt")
+@Category({"AroundMe", "Alert Pipeline"})
+@StackTrace(false)
+public class PromptBuildEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Alerts")
+    public int alerts;
+
+    @Label("Length (chars)")
+    public int chars;
+}
@@ -0,0 +1,22 @@
+package com.aroundme.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.aroundme.ResponseParse")
+@Label("Response Parse")
+@Description("Parsing of an LLM curation response")
+@Category({"AroundMe", "Alert Pipeline"})
+@StackTrace(false)
+public class ResponseParseEvent extends Event {
+
+    @Label("Response Length (chars)")
+    public int chars;
+
+    @Label("Alerts Parsed")
+    public int alerts;
+}
@@ -1,6 +1,7 @@
 package com.aroundme.model;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
@@ -9,6 +10,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Data
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "alerts")
@@ -27,6 +29,13 @@ public class Alert {
     private String imageUrl;
     private boolean isActive;
     
+    // Incident clustering: co-located duplicate reports are merged into one alert
+    private Integer reportCount;
+    private LocalDateTime lastUpdated;
+    
+    // Set on RSS alerts: whether the category came from the LLM or the local classifier
+    private CategorySource categorySource;
+    
     // AI-generated fields
     private Double relevanceScore;
     private String whyItMatters;
@@ -39,6 +48,8 @@ public class Alert {
         this.category = category;
         this.location = location;
         this.timestamp = LocalDateTime.now();
+        this.lastUpdated = this.timestamp;
+        this.reportCount = 1;
         this.submittedBy = submittedBy;
         this.isActive = true;
         this.impact = ImpactLevel.LOW;
@@ -0,0 +1,36 @@
+package com.aroundme.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rolled-up alert counts for one city, category and time bucket.
+ * New alerts are counted in alerts and in their impact's counter;
+ * reports also includes duplicate reports merged into existing incidents.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "alert_trends")
+public class AlertTrendBucket {
+
+    @Id
+    private String id; // granularity|city|category|bucketStart
+
+    private TrendGranularity granularity;
+    private String city;
+    private AlertCategory category;
+    private LocalDateTime bucketStart;
+
+    private long alerts;
+    private long reports;
+    private long high;
+    private long medium;
+    private long low;
+    private long info;
+}
@@ -0,0 +1,9 @@
+package com.aroundme.model;
+
+/**
+ * Who assigned an alert's category; only LLM labels are used as training data.
+ */
+public enum CategorySource {
+    LLM,
+    LOCAL
+}
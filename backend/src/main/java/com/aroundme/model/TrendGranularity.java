@@ -0,0 +1,23 @@
+package com.aroundme.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum TrendGranularity {
+    HOURLY(ChronoUnit.HOURS),
+    DAILY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    TrendGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+}
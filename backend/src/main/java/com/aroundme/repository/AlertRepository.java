@@ -2,10 +2,13 @@ package com.aroundme.repository;
 
 import com.aroundme.model.Alert;
 import com.aroundme.model.AlertCategory;
+import com.aroundme.model.CategorySource;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +21,25 @@ public interface AlertRepository extends MongoRepository<Alert, String> {
     List<Alert> findByIsActiveTrueAndTimestampAfter(LocalDateTime timestamp);
     
     List<Alert> findByCategoryInAndIsActiveTrueOrderByTimestampDesc(List<AlertCategory> categories);
+    
+    // Active snapshot: everything the distance, ranking and prompt stages read, minus submitter details
+    @Query(value = "{ 'isActive': true }", fields = "{ 'submittedBy': 0, 'imageUrl': 0 }")
+    List<Alert> findActiveForSnapshot();
+    
+    // Hydrates the few curated alerts of a full response with the fields the snapshot leaves out
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'submittedBy': 1, 'imageUrl': 1 }")
+    List<Alert> findSubmitterDetailsByIdIn(Collection<String> ids);
+    
+    // Catch-up after restoring a saved snapshot
+    @Query(value = "{ 'isActive': true, '$or': [ { 'lastUpdated': { '$gt': ?0 } }, { 'timestamp': { '$gt': ?0 } } ] }",
+           fields = "{ 'submittedBy': 0, 'imageUrl': 0 }")
+    List<Alert> findActiveChangedSince(LocalDateTime since);
+    
+    @Query(value = "{ '_id': { '$in': ?0 }, 'isActive': true }", fields = "{ '_id': 1 }")
+    List<Alert> findActiveIdsIn(Collection<String> ids);
+    
+    // Labelled examples for the local RSS classifier
+    @Query(value = "{ 'submittedBy': ?0, 'categorySource': ?1, 'category': { '$ne': null } }",
+           fields = "{ 'title': 1, 'description': 1, 'category': 1 }")
+    List<Alert> findClassificationExamples(String submittedBy, CategorySource categorySource);
 }
@@ -0,0 +1,23 @@
+package com.aroundme.repository;
+
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.AlertTrendBucket;
+import com.aroundme.model.TrendGranularity;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AlertTrendRepository extends MongoRepository<AlertTrendBucket, String> {
+    
+    List<AlertTrendBucket> findByGranularityAndCityAndCategoryAndBucketStartBetweenOrderByBucketStart(
+            TrendGranularity granularity, String city, AlertCategory category, Range<LocalDateTime> period);
+    
+    List<AlertTrendBucket> findByGranularityAndCityAndBucketStartBetweenOrderByBucketStart(
+            TrendGranularity granularity, String city, Range<LocalDateTime> period);
+    
+    long deleteByGranularityAndBucketStartBefore(TrendGranularity granularity, LocalDateTime cutoff);
+}
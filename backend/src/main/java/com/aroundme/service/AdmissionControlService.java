@@ -0,0 +1,167 @@
+package com.aroundme.service;
+
+import com.aroundme.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-endpoint concurrency limits and per-client rate limits, so a slow LLM
+ * provider fills up only the curated pool while map, overview and submit
+ * requests keep their own capacity. Requests over a limit are rejected
+ * immediately (after at most queue-timeout-ms) instead of queueing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdmissionControlService {
+
+    public enum EndpointClass {
+        CURATED, SUBMIT, READ
+    }
+
+    public enum Rejection {
+        RATE_LIMITED, OVERLOADED
+    }
+
+    /**
+     * Outcome of admission; an admitted request holds it until it completes.
+     * rejection is null when admitted; retryAfterSeconds is the Retry-After
+     * value for a rejection.
+     */
+    public record Admission(Rejection rejection, long retryAfterSeconds, Runnable release) implements AutoCloseable {
+
+        public boolean admitted() {
+            return rejection == null;
+        }
+
+        @Override
+        public void close() {
+            if (release != null) release.run();
+        }
+    }
+
+    private static final Admission UNLIMITED = new Admission(null, 0, null);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alerts.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.admission.queue-timeout-ms:50}")
+    private long queueTimeoutMs;
+
+    @Value("${alerts.admission.curated.max-concurrent:16}")
+    private int curatedConcurrency;
+
+    @Value("${alerts.admission.submit.max-concurrent:32}")
+    private int submitConcurrency;
+
+    @Value("${alerts.admission.read.max-concurrent:64}")
+    private int readConcurrency;
+
+    @Value("${alerts.admission.curated.rate-per-second:1}")
+    private double curatedRate;
+
+    @Value("${alerts.admission.submit.rate-per-second:1}")
+    private double submitRate;
+
+    @Value("${alerts.admission.read.rate-per-second:20}")
+    private double readRate;
+
+    @Value("${alerts.admission.burst-seconds:5}")
+    private double burstSeconds;
+
+    // Header identifying the client (e.g. an API key set by the gateway); blank uses the remote address,
+    // which reflects X-Forwarded-For from trusted proxies (server.forward-headers-strategy)
+    @Value("${alerts.admission.client-key-header:}")
+    private String clientKeyHeader;
+
+    private final Map<EndpointClass, Semaphore> concurrency = new EnumMap<>(EndpointClass.class);
+    private final Map<ClientKey, TokenBucket> rates = new ConcurrentHashMap<>();
+
+    private record ClientKey(EndpointClass endpoint, String client) {
+    }
+
+    @PostConstruct
+    void init() {
+        concurrency.put(EndpointClass.CURATED, new Semaphore(curatedConcurrency));
+        concurrency.put(EndpointClass.SUBMIT, new Semaphore(submitConcurrency));
+        concurrency.put(EndpointClass.READ, new Semaphore(readConcurrency));
+    }
+
+    /**
+     * Key the per-client rate limits are tracked under.
+     */
+    public String clientKey(HttpServletRequest request) {
+        if (!clientKeyHeader.isBlank()) {
+            String key = request.getHeader(clientKeyHeader);
+            if (key != null && !key.isBlank()) {
+                return key;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Admit a request, or return why it was rejected. Priority requests
+     * (emergency and safety reports) are always admitted.
+     */
+    public Admission admit(EndpointClass endpoint, String client, boolean priority) {
+        if (!enabled || priority) {
+            return UNLIMITED;
+        }
+
+        TokenBucket bucket = rates.computeIfAbsent(new ClientKey(endpoint, client),
+                k -> new TokenBucket(rate(endpoint), Math.max(1, rate(endpoint) * burstSeconds)));
+        if (!bucket.tryAcquire()) {
+            return reject(endpoint, Rejection.RATE_LIMITED, bucket.nanosUntilAvailable());
+        }
+
+        Semaphore slots = concurrency.get(endpoint);
+        try {
+            if (!slots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return reject(endpoint, Rejection.OVERLOADED, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(endpoint, Rejection.OVERLOADED, 0);
+        }
+        return new Admission(null, 0, slots::release);
+    }
+
+    // Forget clients idle for longer than it takes their bucket to refill
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleClients() {
+        long idleNanos = TimeUnit.SECONDS.toNanos((long) Math.ceil(burstSeconds) + 60);
+        rates.values().removeIf(bucket -> bucket.idleNanos() > idleNanos);
+    }
+
+    private Admission reject(EndpointClass endpoint, Rejection reason, long waitNanos) {
+        meterRegistry.counter("alerts.admission.rejected",
+                "endpoint", endpoint.name().toLowerCase(), "reason", reason.name().toLowerCase()).increment();
+        log.debug("Rejected {} request: {}", endpoint, reason);
+        // Overload has no known end; ask for the shortest whole-second wait
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new Admission(reason, retryAfter, null);
+    }
+
+    private double rate(EndpointClass endpoint) {
+        return switch (endpoint) {
+            case CURATED -> curatedRate;
+            case SUBMIT -> submitRate;
+            case READ -> readRate;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Deactivates alerts that have had no new reports for alerts.expiry.ttl-minutes
+ * and drops them from the active store, which keeps the derived indexes and
+ * area aggregates in step. Opt-in: it sets isActive=false on stored alerts.
+ * Only the alerts Mongo confirms as stale are deactivated and removed, and
+ * alerts still waiting in the write-behind queue are left for a later run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertExpiryService {
+
+    private final ActiveAlertStore activeAlertStore;
+    private final MongoTemplate mongoTemplate;
+    private final AlertWriteBehindQueue writeBehindQueue;
+
+    @Value("${alerts.expiry.enabled:false}")
+    private boolean enabled;
+
+    @Value("${alerts.expiry.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Scheduled(fixedDelayString = "${alerts.expiry.interval-ms:300000}")
+    public void expire() {
+        if (!enabled) return;
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        // A pending write-behind alert is not in Mongo yet, or has a newer version on its way
+        List<String> candidates = activeAlertStore.snapshot().alerts().stream()
+                .filter(alert -> alert.getId() != null && lastActivity(alert) != null
+                        && lastActivity(alert).isBefore(cutoff))
+                .map(Alert::getId)
+                .filter(id -> writeBehindQueue.findPending(id) == null)
+                .toList();
+        if (candidates.isEmpty()) return;
+
+        List<String> expired;
+        try {
+            Query stale = stale(candidates, cutoff);
+            stale.fields().include("_id");
+            expired = mongoTemplate.find(stale, Alert.class).stream().map(Alert::getId).toList();
+            if (expired.isEmpty()) return;
+
+            mongoTemplate.updateMulti(stale(expired, cutoff), new Update().set("isActive", false), Alert.class);
+        } catch (Exception e) {
+            log.warn("Failed to expire {} alerts: {}", candidates.size(), e.getMessage());
+            return;
+        }
+
+        expired.forEach(activeAlertStore::remove);
+        log.info("Expired {} alerts inactive since {}", expired.size(), cutoff);
+    }
+
+    // Guard on lastUpdated so a report merged in meanwhile keeps its alert alive
+    private static Query stale(List<String> ids, LocalDateTime cutoff) {
+        return query(where("_id").in(ids).and("isActive").is(true)
+                .orOperator(where("lastUpdated").lt(cutoff), where("lastUpdated").exists(false)));
+    }
+
+    private static LocalDateTime lastActivity(Alert alert) {
+        return alert.getLastUpdated() != null ? alert.getLastUpdated() : alert.getTimestamp();
+    }
+}
@@ -0,0 +1,229 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.ImportReport;
+import com.aroundme.dto.SubmitAlertRequest;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of alerts from NDJSON (one SubmitAlertRequest object
+ * per line) or CSV (header row naming SubmitAlertRequest fields).
+ * Lines are parsed and validated as they are read and written in unordered
+ * bulk batches, so memory is bounded by the batch size whatever the body size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final AlertService alertService;
+    private final AlertWriteService alertWriteService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${alerts.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${alerts.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Import every line of the body. With an idempotency key, alert ids are
+     * derived from the key and line number, so re-sending the same import
+     * does not create duplicates.
+     */
+    public ImportReport importAlerts(InputStream body, Format format, String idempotencyKey) throws IOException {
+        ImportReport report = new ImportReport();
+        List<Alert> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvColumns = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                if (format == Format.CSV && csvColumns == null) {
+                    csvColumns = header(line);
+                    continue;
+                }
+                report.setLines(report.getLines() + 1);
+
+                try {
+                    SubmitAlertRequest request = format == Format.CSV
+                            ? fromCsv(line, csvColumns)
+                            : objectMapper.readValue(line, SubmitAlertRequest.class);
+                    String invalid = validate(request);
+                    if (invalid != null) {
+                        fail(report, lineNumber, invalid);
+                        continue;
+                    }
+
+                    Alert alert = alertService.toAlert(request);
+                    if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                        alert.setId(UUID.nameUUIDFromBytes(("import:" + idempotencyKey.trim() + ":" + lineNumber)
+                                .getBytes(StandardCharsets.UTF_8)).toString());
+                    }
+                    batch.add(alert);
+                    batchLines.add(lineNumber);
+
+                } catch (IOException | IllegalArgumentException e) {
+                    fail(report, lineNumber, "Unparseable record: " + firstLine(e.getMessage()));
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(batch, batchLines, report);
+                }
+            }
+        } finally {
+            flush(batch, batchLines, report);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} of {} alerts in {} ms ({} alerts/s)", report.getImported(), report.getLines(),
+                elapsedMs, report.getImported() * 1000 / elapsedMs);
+        return report;
+    }
+
+    private void flush(List<Alert> batch, List<Long> batchLines, ImportReport report) {
+        if (batch.isEmpty()) return;
+
+        try {
+            Map<Integer, String> errors = alertWriteService.writeBatch(batch);
+            errors.forEach((index, message) -> fail(report, batchLines.get(index), message));
+            report.setImported(report.getImported() + batch.size() - errors.size());
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} alerts failed: {}", batch.size(), e.getMessage());
+            batchLines.forEach(line -> fail(report, line, "Write failed: " + e.getMessage()));
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private String validate(SubmitAlertRequest request) {
+        if (request == null) {
+            return "Empty record";
+        }
+        Set<ConstraintViolation<SubmitAlertRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private void fail(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ImportReport.LineError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private Map<String, Integer> header(String line) {
+        List<String> names = csvFields(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private SubmitAlertRequest fromCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = csvFields(line);
+        SubmitAlertRequest request = new SubmitAlertRequest();
+        request.setTitle(field(fields, columns, "title"));
+        request.setDescription(field(fields, columns, "description"));
+
+        String category = field(fields, columns, "category");
+        if (category != null) {
+            request.setCategory(AlertCategory.valueOf(category.trim().toUpperCase(Locale.ROOT)));
+        }
+        String latitude = field(fields, columns, "latitude");
+        if (latitude != null) {
+            request.setLatitude(Double.parseDouble(latitude.trim()));
+        }
+        String longitude = field(fields, columns, "longitude");
+        if (longitude != null) {
+            request.setLongitude(Double.parseDouble(longitude.trim()));
+        }
+
+        request.setAddress(field(fields, columns, "address"));
+        request.setSubmittedBy(field(fields, columns, "submittedby"));
+        request.setImageUrl(field(fields, columns, "imageurl"));
+        return request;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) return null;
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 fields within one line; quoted fields may contain commas and "" escapes
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) return "invalid input";
+        int newline = message.indexOf('\n');
+        return newline > 0 ? message.substring(0, newline) : message;
+    }
+}
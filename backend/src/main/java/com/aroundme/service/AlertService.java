@@ -1,18 +1,46 @@
 package com.aroundme.service;
 
+import com.aroundme.dto.AlertDeltaResponse;
+import com.aroundme.dto.AreaOverviewResponse;
+import com.aroundme.dto.CompactAlertDTO;
+import com.aroundme.dto.CompactCuratedAlertsResponse;
 import com.aroundme.dto.CuratedAlertsResponse;
 import com.aroundme.dto.MapAlertDTO;
 import com.aroundme.dto.SubmitAlertRequest;
 import com.aroundme.dto.UserContextRequest;
+import com.aroundme.index.ActiveAlertSnapshot;
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.index.AreaAggregates;
+import com.aroundme.index.Gazetteer;
+import com.aroundme.jfr.AlertFetchEvent;
+import com.aroundme.jfr.DistanceFilterEvent;
 import com.aroundme.model.Alert;
 import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
 import com.aroundme.model.Location;
 import com.aroundme.repository.AlertRepository;
+import com.aroundme.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,74 +49,287 @@ import java.util.stream.Collectors;
 public class AlertService {
     
     private final AlertRepository alertRepository;
+    private final ActiveAlertStore activeAlertStore;
+    private final AreaAggregates areaAggregates;
+    private final Gazetteer gazetteer;
+    private final AlertWriteService alertWriteService;
     private final OpenAIReasoningService aiReasoningService;
-    private final MockDataService mockDataService;
+    private final AreaBriefingService areaBriefingService;
+    private final LocalRankingService localRankingService;
+    private final LlmRouter llmRouter;
+    private final ObjectProvider<MockDataService> mockDataService;
+    private final MeterRegistry meterRegistry;
+    
+    // Concurrent equivalent requests share one pipeline run (and one pair of LLM calls)
+    private final SingleFlight<CurationKey, CuratedAlertsResponse> curations = new SingleFlight<>();
+    
+    @Value("${alerts.coalescing.coordinate-decimals:3}")
+    private int coordinateDecimals;
+    
+    @Value("${alerts.semantic.max-prompt-alerts:25}")
+    private int maxPromptAlerts;
+    
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("alerts.curated.requests", curations, SingleFlight::calls)
+                .description("Curated alert requests received")
+                .register(meterRegistry);
+        FunctionCounter.builder("alerts.curated.executions", curations, SingleFlight::executions)
+                .description("Curation pipeline runs after coalescing")
+                .register(meterRegistry);
+        Gauge.builder("alerts.curated.coalescing.ratio", curations, SingleFlight::coalescingRatio)
+                .description("Fraction of curated requests served by another request's pipeline run")
+                .register(meterRegistry);
+    }
 
     public CuratedAlertsResponse getCuratedAlerts(UserContextRequest userContext) {
-        log.info("Getting curated alerts for location: {}", userContext.getAddress());
-        
-        // Step 1: Fetch raw alerts (from DB + mock data for demo)
-        List<Alert> rawAlerts = fetchRawAlerts(userContext);
-        log.info("Fetched {} raw alerts", rawAlerts.size());
+        return withSubmitterDetails(curated(userContext));
+    }
+    
+    /**
+     * Same pipeline as getCuratedAlerts, mapped to the compact wire format and
+     * without the extra read for submitter details.
+     */
+    public CompactCuratedAlertsResponse getCompactCuratedAlerts(UserContextRequest userContext) {
+        CuratedAlertsResponse response = curated(userContext);
         
-        // Step 2: Calculate distances
-        rawAlerts.forEach(alert -> {
-            double distance = calculateDistance(
-                userContext.getLatitude(), 
-                userContext.getLongitude(),
-                alert.getLocation().getLatitude(),
-                alert.getLocation().getLongitude()
-            );
-            alert.setDistanceFromUser(distance);
-        });
+        return new CompactCuratedAlertsResponse(
+            response.getAlerts().stream().map(this::toCompact).toList(),
+            response.getAiSummary(),
+            response.getTotalAlertsAnalyzed(),
+            response.getRelevantAlertsReturned(),
+            response.isDegraded()
+        );
+    }
+    
+    private CuratedAlertsResponse curated(UserContextRequest userContext) {
+        log.info("Getting curated alerts for location: {}", userContext.getAddress());
         
-        // Step 3: Filter by radius
-        List<Alert> alertsInRadius = rawAlerts.stream()
-                .filter(alert -> alert.getDistanceFromUser() <= userContext.getRadiusKm())
-                .collect(Collectors.toList());
+        return curations.execute(curationKey(userContext), () -> curate(userContext));
+    }
+    
+    private CuratedAlertsResponse curate(UserContextRequest userContext) {
+        llmRouter.beginRequest();
+        try {
+            return curateWithinRequest(userContext);
+        } finally {
+            LlmRouter.Usage usage = llmRouter.endRequest();
+            if (usage != null && usage.getCalls() > 0) {
+                meterRegistry.summary("llm.request.tokens")
+                        .record(usage.getPromptTokens() + usage.getCompletionTokens());
+                meterRegistry.summary("llm.request.cost.usd").record(usage.getCost());
+                log.info("Curation used {} LLM calls, {} prompt + {} completion tokens, {} ms, ${}",
+                        usage.getCalls(), usage.getPromptTokens(), usage.getCompletionTokens(),
+                        usage.getLatencyMs(), String.format("%.5f", usage.getCost()));
+            }
+        }
+    }
+    
+    private CuratedAlertsResponse curateWithinRequest(UserContextRequest userContext) {
+        // Step 1-3: Radius scan over the active snapshot (+ mock data for demo)
+        List<Alert> alertsInRadius = fetchAlertsInRadius(userContext);
         
         log.info("{} alerts within {} km radius", alertsInRadius.size(), userContext.getRadiusKm());
         
         if (alertsInRadius.isEmpty()) {
-            return new CuratedAlertsResponse(List.of(), "No alerts found in your area.", 0, 0);
+            return new CuratedAlertsResponse(List.of(), "No alerts found in your area.", 0, 0, false);
         }
         
-        // Step 4: AI Reasoning - Curate and rank alerts
-        List<Alert> curatedAlerts = aiReasoningService.curateAlerts(alertsInRadius, userContext);
+        // Step 4: Local relevance ranking; only the best candidates go into the prompt
+        List<Alert> rankedAlerts = localRankingService.rank(alertsInRadius, userContext);
+        List<Alert> promptAlerts = rankedAlerts.size() > maxPromptAlerts
+                ? rankedAlerts.subList(0, maxPromptAlerts)
+                : rankedAlerts;
+        
+        // Step 5: AI Reasoning - Curate and rank alerts; when the LLM is backed up,
+        // downgrade to the local ranking rather than queueing behind it
+        boolean degraded = aiReasoningService.isSaturated();
+        List<Alert> curatedAlerts;
+        if (degraded) {
+            meterRegistry.counter("alerts.curated.degraded").increment();
+            curatedAlerts = localRankingService.curateOffline(promptAlerts, userContext, 5);
+        } else {
+            curatedAlerts = aiReasoningService.curateAlerts(promptAlerts, userContext);
+        }
         
-        // Step 5: Generate AI summary
-        String aiSummary = aiReasoningService.generateSummary(curatedAlerts, userContext);
+        // Step 6: AI summary, served from the precomputed area briefings when enabled
+        String aiSummary = areaBriefingService.isEnabled() || degraded
+                ? areaBriefingService.summaryFor(userContext, curatedAlerts)
+                : aiReasoningService.generateSummary(curatedAlerts, userContext);
         
         return new CuratedAlertsResponse(
             curatedAlerts,
             aiSummary,
             alertsInRadius.size(),
-            curatedAlerts.size()
+            curatedAlerts.size(),
+            degraded
         );
     }
 
-    private List<Alert> fetchRawAlerts(UserContextRequest userContext) {
-        List<Alert> alerts;
+    /**
+     * The active snapshot is loaded without submitter details; fill them in for
+     * the handful of alerts a full response returns.
+     */
+    private CuratedAlertsResponse withSubmitterDetails(CuratedAlertsResponse response) {
+        List<String> ids = response.getAlerts().stream()
+                .filter(alert -> alert.getId() != null && alert.getSubmittedBy() == null)
+                .map(Alert::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return response;
+        }
         
-        // Try to get from database first
-        if (userContext.getInterestedCategories() != null && !userContext.getInterestedCategories().isEmpty()) {
-            alerts = alertRepository.findByCategoryInAndIsActiveTrueOrderByTimestampDesc(
-                userContext.getInterestedCategories()
-            );
-        } else {
-            alerts = alertRepository.findByIsActiveTrue();
+        Map<String, Alert> details;
+        AlertFetchEvent fetchEvent = new AlertFetchEvent();
+        fetchEvent.begin();
+        try {
+            details = alertRepository.findSubmitterDetailsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(Alert::getId, Function.identity()));
+            commit(fetchEvent, "repository", details.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load submitter details, returning alerts without them: {}", e.getMessage());
+            return response;
         }
         
+        // Copies: the response may be shared with coalesced requests
+        List<Alert> alerts = response.getAlerts().stream()
+                .map(alert -> {
+                    Alert found = details.get(alert.getId());
+                    return found == null ? alert : alert.toBuilder()
+                            .submittedBy(found.getSubmittedBy())
+                            .imageUrl(found.getImageUrl())
+                            .build();
+                })
+                .toList();
+        
+        return new CuratedAlertsResponse(
+            alerts,
+            response.getAiSummary(),
+            response.getTotalAlertsAnalyzed(),
+            response.getRelevantAlertsReturned(),
+            response.isDegraded()
+        );
+    }
+    
+    private CompactAlertDTO toCompact(Alert alert) {
+        String summary = alert.getWhyItMatters() != null ? alert.getWhyItMatters() : alert.getDescription();
+        if (summary != null && summary.length() > 160) {
+            summary = summary.substring(0, 157) + "...";
+        }
+        
+        return new CompactAlertDTO(
+            alert.getId(),
+            alert.getTitle(),
+            summary,
+            alert.getCategory(),
+            alert.getImpact(),
+            alert.getLocation().getLatitude(),
+            alert.getLocation().getLongitude(),
+            alert.getDistanceFromUser() != null ? Math.round(alert.getDistanceFromUser() * 100) / 100.0 : null,
+            alert.getRelevanceScore(),
+            alert.getReportCount()
+        );
+    }
+
+    /**
+     * Normalized identity of a curation request: coordinates rounded to
+     * alerts.coalescing.coordinate-decimals places, categories as a set, text
+     * fields trimmed and lowercased.
+     */
+    private record CurationKey(long lat, long lng, Double radiusKm, List<AlertCategory> categories,
+                               String address, String intent, String destination) {
+    }
+    
+    private CurationKey curationKey(UserContextRequest userContext) {
+        double scale = Math.pow(10, coordinateDecimals);
+        List<AlertCategory> categories = userContext.getInterestedCategories() == null
+                ? List.of()
+                : userContext.getInterestedCategories().stream().distinct().sorted().toList();
+        
+        return new CurationKey(
+            Math.round(userContext.getLatitude() * scale),
+            Math.round(userContext.getLongitude() * scale),
+            userContext.getRadiusKm(),
+            categories,
+            normalize(userContext.getAddress()),
+            normalize(userContext.getIntent()),
+            normalize(userContext.getDestination())
+        );
+    }
+    
+    private String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private List<Alert> fetchAlertsInRadius(UserContextRequest userContext) {
+        double lat = userContext.getLatitude();
+        double lng = userContext.getLongitude();
+        
+        // Columnar snapshot scan, no per-request Mongo round trip
+        DistanceFilterEvent scanEvent = new DistanceFilterEvent();
+        scanEvent.begin();
+        List<Alert> alerts = new ArrayList<>(activeAlertStore.findWithin(
+            lat, lng, userContext.getRadiusKm(), userContext.getInterestedCategories()
+        ));
+        alerts.sort(Comparator.comparing(Alert::getTimestamp,
+                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+        commit(scanEvent, "snapshot", activeAlertStore.snapshot().size(), alerts.size(), userContext.getRadiusKm());
+        
         // Add mock data for demo (remove in production)
+        AlertFetchEvent mockEvent = new AlertFetchEvent();
+        mockEvent.begin();
         String city = userContext.getAddress() != null ? userContext.getAddress() : "Vadodara";
-        alerts.addAll(mockDataService.generateMockAlerts(city));
+        List<Alert> mockAlerts = mockDataService.getObject().generateMockAlerts(city);
+        commit(mockEvent, "mock", mockAlerts.size());
+        
+        DistanceFilterEvent mockFilterEvent = new DistanceFilterEvent();
+        mockFilterEvent.begin();
+        int before = alerts.size();
+        mockAlerts.forEach(alert -> {
+            alert.setDistanceFromUser(calculateDistance(
+                lat, lng,
+                alert.getLocation().getLatitude(),
+                alert.getLocation().getLongitude()
+            ));
+            if (alert.getDistanceFromUser() <= userContext.getRadiusKm()) {
+                alerts.add(alert);
+            }
+        });
+        commit(mockFilterEvent, "mock", mockAlerts.size(), alerts.size() - before, userContext.getRadiusKm());
         
         return alerts;
     }
+    
+    private static void commit(DistanceFilterEvent event, String source, int candidates, int matched, double radiusKm) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.candidates = candidates;
+            event.matched = matched;
+            event.radiusKm = radiusKm;
+            event.commit();
+        }
+    }
+    
+    private static void commit(AlertFetchEvent event, String source, int alerts) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.alerts = alerts;
+            event.commit();
+        }
+    }
 
-    public Alert submitAlert(SubmitAlertRequest request) {
+    public Alert submitAlert(SubmitAlertRequest request, String idempotencyKey) {
         log.info("New alert submission: {}", request.getTitle());
         
+        return alertWriteService.write(toAlert(request), idempotencyKey);
+    }
+    
+    /**
+     * New active alert for a validated submission (also used by bulk import).
+     */
+    public Alert toAlert(SubmitAlertRequest request) {
         Location location = new Location(
             request.getLatitude(),
             request.getLongitude(),
@@ -105,8 +346,7 @@ public class AlertService {
         );
         
         alert.setImageUrl(request.getImageUrl());
-        
-        return alertRepository.save(alert);
+        return alert;
     }
 
     public List<AlertCategory> getAllCategories() {
@@ -114,18 +354,7 @@ public class AlertService {
     }
 
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int EARTH_RADIUS_KM = 6371;
-        
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return EARTH_RADIUS_KM * c;
+        return ActiveAlertSnapshot.haversineKm(lat1, lon1, lat2, lon2);
     }
 
     private String extractCity(String address) {
@@ -133,37 +362,150 @@ public class AlertService {
             return "Unknown";
         }
         
+        Gazetteer.Place place = gazetteer.resolveAddress(address);
+        if (place != null) {
+            return place.city();
+        }
+        
         String[] parts = address.split(",");
-        return parts.length > 0 ? parts[parts.length - 1].trim() : "Unknown";
+        String last = parts.length > 0 ? parts[parts.length - 1].trim() : "";
+        return !last.isEmpty() ? last : "Unknown";
     }
 
     public List<MapAlertDTO> getMapAlerts(
             Double userLat, Double userLng, Double radiusKm) {
 
-        List<Alert> alerts = alertRepository.findByIsActiveTrue();
-
-        return alerts.stream()
-                .peek(alert -> {
-                    double dist = calculateDistance(
-                            userLat, userLng,
-                            alert.getLocation().getLatitude(),
-                            alert.getLocation().getLongitude()
-                    );
-                    alert.setDistanceFromUser(dist);
-                })
-                .filter(alert -> alert.getDistanceFromUser() <= radiusKm)
+        return activeAlertStore.findWithin(userLat, userLng, radiusKm, null).stream()
+                .sorted(Comparator.comparing(Alert::getDistanceFromUser))
                 .limit(20) // CRITICAL: map safety
-                .map(alert -> new MapAlertDTO(
-                        alert.getLocation().getLatitude(),
-                        alert.getLocation().getLongitude(),
-                        alert.getCategory(),
-                        alert.getImpact(),
-                        alert.getTitle(),
-                        alert.getWhyItMatters() != null
-                                ? alert.getWhyItMatters()
-                                : alert.getDescription()
-                ))
+                .map(this::toMapDTO)
                 .toList();
     }
 
+    /**
+     * Alerts added, updated or gone within the area since a version returned by
+     * an earlier delta or map call. Unlike getMapAlerts the delta is not capped
+     * to the nearest 20.
+     */
+    public AlertDeltaResponse getMapDelta(Double userLat, Double userLng, Double radiusKm, String since) {
+        // Version first: changes landing meanwhile are sent again next time, never skipped
+        String version = areaVersionToken(userLat, userLng, radiusKm);
+        Long sinceSequence = parseVersion(since);
+        ActiveAlertStore.Changes changes = sinceSequence != null
+                ? activeAlertStore.changesSince(sinceSequence)
+                : null;
+        if (changes == null || !changes.complete()) {
+            return new AlertDeltaResponse(version, true, List.of(), List.of());
+        }
+
+        Map<String, Alert> latest = new LinkedHashMap<>();
+        for (ActiveAlertStore.Change change : changes.changes()) {
+            Alert any = change.current() != null ? change.current() : change.previous();
+            if (any.getId() == null) continue;
+            if (inArea(change.previous(), userLat, userLng, radiusKm)
+                    || inArea(change.current(), userLat, userLng, radiusKm)
+                    || latest.containsKey(any.getId())) {
+                latest.put(any.getId(), change.current());
+            }
+        }
+
+        List<MapAlertDTO> upserted = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        latest.forEach((id, current) -> {
+            if (inArea(current, userLat, userLng, radiusKm)) {
+                upserted.add(toMapDTO(current));
+            } else {
+                removed.add(id);
+            }
+        });
+        return new AlertDeltaResponse(version, false, upserted, removed);
+    }
+
+    /**
+     * Opaque, per-instance version of the alert set around a point; a starting
+     * point for getMapDelta.
+     */
+    public String mapVersion(Double userLat, Double userLng, Double radiusKm) {
+        return areaVersionToken(userLat, userLng, radiusKm);
+    }
+
+    /**
+     * Weak ETag for a map response: the area's version and the query.
+     */
+    public String mapETag(String version, Double userLat, Double userLng, Double radiusKm) {
+        return etag("m", version, Objects.hash(userLat, userLng, radiusKm));
+    }
+
+    /**
+     * Weak ETag for a curated response: the area's version, the briefing in use
+     * and the request context, so If-None-Match can skip the pipeline.
+     */
+    public String curatedETag(UserContextRequest userContext, boolean compact) {
+        String version = areaVersionToken(userContext.getLatitude(), userContext.getLongitude(), userContext.getRadiusKm())
+                + "." + Long.toHexString(areaBriefingService.briefingStamp(userContext));
+        return etag(compact ? "cc" : "c", version, curationKey(userContext).hashCode());
+    }
+
+    private String areaVersionToken(double latitude, double longitude, double radiusKm) {
+        return activeAlertStore.epoch() + "." + activeAlertStore.areaVersion(latitude, longitude, radiusKm);
+    }
+
+    // null unless the token was issued by this store instance
+    private Long parseVersion(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot < 0 || !token.substring(0, dot).equals(activeAlertStore.epoch())) return null;
+        try {
+            return Long.parseLong(token.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String etag(String kind, String version, int contextHash) {
+        return "W/\"" + kind + "-" + version + "-" + Integer.toHexString(contextHash) + "\"";
+    }
+
+    private boolean inArea(Alert alert, double latitude, double longitude, double radiusKm) {
+        return alert != null && alert.getLocation() != null
+                && alert.getLocation().getLatitude() != null && alert.getLocation().getLongitude() != null
+                && calculateDistance(latitude, longitude,
+                        alert.getLocation().getLatitude(), alert.getLocation().getLongitude()) <= radiusKm;
+    }
+
+    private MapAlertDTO toMapDTO(Alert alert) {
+        return new MapAlertDTO(
+                alert.getLocation().getLatitude(),
+                alert.getLocation().getLongitude(),
+                alert.getCategory(),
+                alert.getImpact(),
+                alert.getTitle(),
+                alert.getWhyItMatters() != null
+                        ? alert.getWhyItMatters()
+                        : alert.getDescription(),
+                alert.getReportCount(),
+                alert.getId()
+        );
+    }
+
+    /**
+     * Active alert counts by category and impact around a point, from the
+     * per-cell aggregates: no alert scan and no LLM call.
+     */
+    public AreaOverviewResponse getAreaOverview(Double latitude, Double longitude, Double radiusKm) {
+        AreaAggregates.Counts counts = areaAggregates.around(latitude, longitude, radiusKm);
+
+        Map<AlertCategory, Integer> byCategory = new EnumMap<>(AlertCategory.class);
+        for (AlertCategory category : AlertCategory.values()) {
+            byCategory.put(category, counts.count(category));
+        }
+        Map<ImpactLevel, Integer> byImpact = new EnumMap<>(ImpactLevel.class);
+        for (ImpactLevel impact : ImpactLevel.values()) {
+            byImpact.put(impact, counts.count(impact));
+        }
+
+        return new AreaOverviewResponse(latitude, longitude, radiusKm, counts.total(), byCategory, byImpact,
+                activeAlertStore.areaVersion(latitude, longitude, radiusKm));
+    }
+
 }
@@ -0,0 +1,265 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.TrendResponse;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.AlertTrendBucket;
+import com.aroundme.model.ImpactLevel;
+import com.aroundme.model.TrendGranularity;
+import com.aroundme.repository.AlertTrendRepository;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Hourly and daily alert counts per city and category, kept in the separate
+ * alert_trends collection so analytics never query the hot alerts collection.
+ * Writes are counted in memory and flushed as bulk $inc upserts; hourly
+ * buckets are compacted away once older than the retention, leaving the daily ones.
+ * Cities are keyed trimmed and lower-cased, so "Pune" and "pune " share buckets.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertTrendService {
+
+    private static final String UNKNOWN_CITY = "unknown";
+
+    private final AlertTrendRepository trendRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${alerts.trends.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.trends.hourly-retention-days:14}")
+    private int hourlyRetentionDays;
+
+    private record BucketKey(TrendGranularity granularity, String city, AlertCategory category,
+                             LocalDateTime bucketStart) {
+
+        String id() {
+            return granularity + "|" + city + "|" + category + "|" + bucketStart;
+        }
+    }
+
+    // alerts, reports, high, medium, low, info
+    private static final int ALERTS = 0;
+    private static final int REPORTS = 1;
+    private static final int IMPACT_OFFSET = 2;
+
+    private final Object lock = new Object();
+    private Map<BucketKey, long[]> buffer = new HashMap<>();
+
+    // After startup, off the main thread: bean init must not wait on MongoDB
+    // (the CDS training run exits on refresh, before this fires)
+    @EventListener(ApplicationReadyEvent.class)
+    void ensureIndexes() {
+        CompletableFuture.runAsync(this::createIndexes);
+    }
+
+    private void createIndexes() {
+        try {
+            mongoTemplate.indexOps(AlertTrendBucket.class).ensureIndex(new Index()
+                    .on("granularity", Sort.Direction.ASC)
+                    .on("city", Sort.Direction.ASC)
+                    .on("category", Sort.Direction.ASC)
+                    .on("bucketStart", Sort.Direction.ASC));
+        } catch (Exception e) {
+            log.warn("Could not create alert_trends index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Count a newly created alert.
+     */
+    public void recordNewAlert(Alert alert) {
+        record(alert, alert.getTimestamp() != null ? alert.getTimestamp() : LocalDateTime.now(), true, 1);
+    }
+
+    /**
+     * Take back recordNewAlert for an alert whose write was dropped.
+     */
+    public void reverseNewAlert(Alert alert) {
+        record(alert, alert.getTimestamp() != null ? alert.getTimestamp() : LocalDateTime.now(), true, -1);
+    }
+
+    /**
+     * Count a duplicate report merged into an existing incident.
+     */
+    public void recordMergedReport(Alert incident) {
+        record(incident, LocalDateTime.now(), false, 1);
+    }
+
+    private void record(Alert alert, LocalDateTime time, boolean newAlert, int sign) {
+        if (!enabled) return;
+
+        String city = city(alert);
+        AlertCategory category = alert.getCategory() != null ? alert.getCategory() : AlertCategory.OTHER;
+        synchronized (lock) {
+            for (TrendGranularity granularity : TrendGranularity.values()) {
+                long[] delta = buffer.computeIfAbsent(
+                        new BucketKey(granularity, city, category, granularity.bucketStart(time)),
+                        k -> new long[IMPACT_OFFSET + ImpactLevel.values().length]);
+                delta[REPORTS] += sign;
+                if (newAlert) {
+                    delta[ALERTS] += sign;
+                    ImpactLevel impact = alert.getImpact() != null ? alert.getImpact() : ImpactLevel.LOW;
+                    delta[IMPACT_OFFSET + impact.ordinal()] += sign;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.trends.flush-interval-ms:10000}")
+    public void flush() {
+        Map<BucketKey, long[]> batch;
+        synchronized (lock) {
+            if (buffer.isEmpty()) return;
+            batch = buffer;
+            buffer = new HashMap<>();
+        }
+
+        // Bulk index i is keys.get(i), so per-operation errors map back to their bucket
+        List<BucketKey> keys = new ArrayList<>(batch.keySet());
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AlertTrendBucket.class);
+            for (BucketKey key : keys) {
+                long[] delta = batch.get(key);
+                bulk.upsert(query(where("_id").is(key.id())), new Update()
+                        .setOnInsert("granularity", key.granularity())
+                        .setOnInsert("city", key.city())
+                        .setOnInsert("category", key.category())
+                        .setOnInsert("bucketStart", key.bucketStart())
+                        .inc("alerts", delta[ALERTS])
+                        .inc("reports", delta[REPORTS])
+                        .inc("high", delta[IMPACT_OFFSET + ImpactLevel.HIGH.ordinal()])
+                        .inc("medium", delta[IMPACT_OFFSET + ImpactLevel.MEDIUM.ordinal()])
+                        .inc("low", delta[IMPACT_OFFSET + ImpactLevel.LOW.ordinal()])
+                        .inc("info", delta[IMPACT_OFFSET + ImpactLevel.INFO.ordinal()]));
+            }
+            bulk.execute();
+            log.debug("Flushed {} trend buckets", batch.size());
+
+        } catch (BulkOperationException e) {
+            // Unordered: every operation without an error was applied, so only the failed ones go back
+            Map<BucketKey, long[]> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                BucketKey key = keys.get(error.getIndex());
+                failed.put(key, batch.get(key));
+            }
+            log.warn("Failed to flush {} of {} trend buckets: {}", failed.size(), batch.size(), e.getMessage());
+            requeue(failed);
+
+        } catch (Exception e) {
+            // Nothing was applied; the whole batch is retried with the next flush
+            log.warn("Failed to flush {} trend buckets: {}", batch.size(), e.getMessage());
+            requeue(batch);
+        }
+    }
+
+    private void requeue(Map<BucketKey, long[]> deltas) {
+        synchronized (lock) {
+            deltas.forEach((key, delta) -> buffer.merge(key, delta, (a, b) -> {
+                for (int i = 0; i < a.length; i++) a[i] += b[i];
+                return a;
+            }));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.trends.compact-interval-ms:3600000}")
+    public void compact() {
+        LocalDateTime cutoff = TrendGranularity.DAILY.bucketStart(LocalDateTime.now()).minusDays(hourlyRetentionDays);
+        try {
+            long removed = trendRepository.deleteByGranularityAndBucketStartBefore(TrendGranularity.HOURLY, cutoff);
+            if (removed > 0) {
+                log.info("Compacted {} hourly trend buckets older than {}", removed, cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to compact trend buckets: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Buckets for the last periodDays (up to the current bucket) and the total
+     * for the period of the same length before it, read from rollups only.
+     * category null sums all categories.
+     */
+    public TrendResponse getTrends(String city, AlertCategory category, TrendGranularity granularity, int periodDays) {
+        LocalDateTime to = granularity.bucketStart(LocalDateTime.now()).plus(1, granularity.unit());
+        LocalDateTime from = to.minusDays(periodDays);
+
+        String key = normalizeCity(city);
+
+        List<TrendResponse.Point> points = points(find(key, category, granularity, from, to));
+        long total = points.stream().mapToLong(TrendResponse.Point::getAlerts).sum();
+        long previous = find(key, category, granularity, from.minusDays(periodDays), from).stream()
+                .mapToLong(AlertTrendBucket::getAlerts).sum();
+        Double change = previous > 0 ? Math.round((total - previous) * 1000.0 / previous) / 10.0 : null;
+
+        return new TrendResponse(city, category, granularity, from, to, points, total, previous, change);
+    }
+
+    private List<AlertTrendBucket> find(String city, AlertCategory category, TrendGranularity granularity,
+                                        LocalDateTime from, LocalDateTime to) {
+        Range<LocalDateTime> period = Range.rightOpen(from, to);
+        return category != null
+                ? trendRepository.findByGranularityAndCityAndCategoryAndBucketStartBetweenOrderByBucketStart(
+                        granularity, city, category, period)
+                : trendRepository.findByGranularityAndCityAndBucketStartBetweenOrderByBucketStart(
+                        granularity, city, period);
+    }
+
+    // Sums categories that share a bucket
+    private List<TrendResponse.Point> points(List<AlertTrendBucket> buckets) {
+        Map<LocalDateTime, TrendResponse.Point> points = new TreeMap<>();
+        for (AlertTrendBucket bucket : buckets) {
+            TrendResponse.Point point = points.computeIfAbsent(bucket.getBucketStart(),
+                    start -> new TrendResponse.Point(start, 0, 0, 0, 0, 0, 0));
+            point.setAlerts(point.getAlerts() + bucket.getAlerts());
+            point.setReports(point.getReports() + bucket.getReports());
+            point.setHigh(point.getHigh() + bucket.getHigh());
+            point.setMedium(point.getMedium() + bucket.getMedium());
+            point.setLow(point.getLow() + bucket.getLow());
+            point.setInfo(point.getInfo() + bucket.getInfo());
+        }
+        return List.copyOf(points.values());
+    }
+
+    private static String city(Alert alert) {
+        return normalizeCity(alert.getLocation() != null ? alert.getLocation().getCity() : null);
+    }
+
+    private static String normalizeCity(String city) {
+        return city != null && !city.isBlank() ? city.trim().toLowerCase(Locale.ROOT) : UNKNOWN_CITY;
+    }
+}
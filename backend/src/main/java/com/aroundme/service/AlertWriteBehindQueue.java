@@ -0,0 +1,426 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Durable local queue for write-behind alert submission.
+ * Each alert is appended to an NDJSON journal and fsynced before it is acknowledged,
+ * then flushed to Mongo in unordered bulk inserts on a size or time trigger.
+ * Concurrent submissions share one fsync (group commit). The journal is
+ * truncated once everything in it has been flushed, and only rewritten when
+ * it outgrows the compaction threshold. Entries left behind by a crash are
+ * replayed on startup and added to the active store once they land.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertWriteBehindQueue {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ActiveAlertStore activeAlertStore;
+    private final AlertTrendService trendService;
+
+    @Value("${alerts.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${alerts.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${alerts.write-behind.journal:data/alert-journal.ndjson}")
+    private String journalFile;
+
+    @Value("${alerts.write-behind.journal-compact-bytes:8388608}")
+    private long compactBytes;
+
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private final LinkedHashMap<String, Alert> pending = new LinkedHashMap<>();
+    // Ids replayed from the journal, which nothing has put in the active store yet
+    private final Set<String> replayed = new HashSet<>();
+    // Journal appends so far (under lock) and how many of them are known to be on disk
+    private long appended;
+    private final Object syncLock = new Object();
+    private long synced;
+    private boolean syncing;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "alert-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path journalPath;
+    private FileChannel journal;
+    private Timer flushLatency;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void open() throws IOException {
+        flushLatency = Timer.builder("alerts.write_behind.flush")
+                .description("Latency of write-behind bulk inserts")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("alerts.write_behind.batch.size")
+                .description("Alerts per write-behind bulk insert")
+                .register(meterRegistry);
+        Gauge.builder("alerts.write_behind.pending", this, AlertWriteBehindQueue::pendingCount)
+                .register(meterRegistry);
+
+        if (!enabled) return;
+
+        journalPath = Path.of(journalFile);
+        if (journalPath.getParent() != null) {
+            Files.createDirectories(journalPath.getParent());
+        }
+        if (Files.exists(journalPath)) {
+            for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    Alert alert = objectMapper.readValue(line, Alert.class);
+                    pending.put(alert.getId(), alert);
+                    replayed.add(alert.getId());
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable write-behind journal entry: {}", e.getMessage());
+                }
+            }
+            log.info("Replaying {} alerts from write-behind journal", pending.size());
+        }
+
+        journal = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (!pending.isEmpty()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Append the alert to the journal and queue it for the next bulk insert.
+     * Returns once the journal write is on disk.
+     */
+    public void enqueue(Alert alert) {
+        long seq;
+        int size;
+        synchronized (lock) {
+            seq = append(alert);
+            size = pending.size();
+        }
+        awaitSynced(seq);
+
+        if (size >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Journal a newer version of an alert that has not been flushed yet.
+     * Returns false if the alert is no longer pending. The check and the
+     * append happen under one lock, so a flush cannot slip in between.
+     */
+    public boolean replacePending(Alert alert) {
+        long seq;
+        synchronized (lock) {
+            if (!pending.containsKey(alert.getId())) {
+                return false;
+            }
+            seq = append(alert);
+        }
+        awaitSynced(seq);
+        return true;
+    }
+
+    // Written but not forced; the caller waits for it in awaitSynced, outside the lock
+    private long append(Alert alert) {
+        try {
+            journal.write(ByteBuffer.wrap(
+                    (objectMapper.writeValueAsString(alert) + "\n").getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to journal alert submission", e);
+        }
+        pending.put(alert.getId(), alert);
+        return ++appended;
+    }
+
+    /**
+     * Block until append number seq is on disk. The first waiter to find no
+     * fsync running forces the journal for every append made so far and
+     * releases everyone it covered; the rest wait for it.
+     */
+    private void awaitSynced(long seq) {
+        while (true) {
+            synchronized (syncLock) {
+                while (syncing && synced < seq) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted waiting for the write-behind journal", e);
+                    }
+                }
+                if (synced >= seq) return;
+                syncing = true;
+            }
+
+            long target;
+            FileChannel channel;
+            synchronized (lock) {
+                target = appended;
+                channel = journal;
+            }
+            IOException failure = null;
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Swapped by a compaction, which marks what it kept as synced; go round again
+                target = 0;
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            synchronized (syncLock) {
+                syncing = false;
+                if (failure == null) {
+                    synced = Math.max(synced, target);
+                }
+                syncLock.notifyAll();
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Failed to journal alert submission", failure);
+            }
+        }
+    }
+
+    private void markSynced(long upTo) {
+        synchronized (syncLock) {
+            synced = Math.max(synced, upTo);
+            syncLock.notifyAll();
+        }
+    }
+
+    public Alert findPending(String id) {
+        synchronized (lock) {
+            return pending.get(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.write-behind.flush-interval-ms:250}")
+    public void flush() {
+        if (!enabled) return;
+
+        synchronized (flushLock) {
+            List<Alert> batch;
+            do {
+                synchronized (lock) {
+                    batch = pending.values().stream().limit(batchSize).toList();
+                }
+                if (batch.isEmpty() || !insertBatch(batch)) {
+                    return;
+                }
+            } while (batch.size() == batchSize);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        flusher.shutdown();
+        if (!enabled) return;
+
+        flush();
+        synchronized (lock) {
+            journal.close();
+        }
+    }
+
+    private boolean insertBatch(List<Alert> batch) {
+        long start = System.nanoTime();
+        Set<String> duplicateIds = new HashSet<>();
+        Set<String> droppedIds = new HashSet<>();
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Alert.class);
+            bulk.insert(batch);
+            bulk.execute();
+
+        } catch (BulkOperationException e) {
+            List<Alert> duplicates = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                Alert alert = batch.get(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY) {
+                    duplicates.add(alert);
+                    duplicateIds.add(alert.getId());
+                } else {
+                    log.error("Dropping write-behind alert {}: {}", alert.getId(), error.getMessage());
+                    droppedIds.add(alert.getId());
+                }
+            }
+            if (!duplicates.isEmpty() && !applyMerges(duplicates)) {
+                return false;
+            }
+
+        } catch (DataAccessException e) {
+            log.warn("Write-behind flush of {} alerts failed, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        }
+
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        log.debug("Flushed {} write-behind alerts ({} dropped)", batch.size(), droppedIds.size());
+
+        List<Alert> landedReplays = new ArrayList<>();
+        List<Alert> dropped = new ArrayList<>();
+        synchronized (lock) {
+            // A version replaced while this batch was in flight stays for the next flush
+            for (Alert alert : batch) {
+                if (pending.get(alert.getId()) != alert) continue;
+                pending.remove(alert.getId());
+
+                boolean wasReplayed = replayed.remove(alert.getId());
+                if (droppedIds.contains(alert.getId())) {
+                    if (!wasReplayed) dropped.add(alert);
+                } else if (wasReplayed && !duplicateIds.contains(alert.getId())) {
+                    landedReplays.add(alert);
+                }
+            }
+            compactJournal();
+        }
+
+        if (!landedReplays.isEmpty()) {
+            activeAlertStore.upsertAll(landedReplays);
+        }
+        // The write path already showed these; take them back out
+        for (Alert alert : dropped) {
+            activeAlertStore.remove(alert.getId());
+            trendService.reverseNewAlert(alert);
+        }
+        return true;
+    }
+
+    /**
+     * Alerts whose id already exists are retries that landed or merged
+     * versions of an alert inserted by an earlier flush. Carry the merge
+     * fields over; $max keeps a replayed stale version from undoing them.
+     */
+    private boolean applyMerges(List<Alert> alerts) {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Alert.class);
+            int updates = 0;
+            for (Alert alert : alerts) {
+                Update update = new Update();
+                if (alert.getReportCount() != null) {
+                    update.max("reportCount", alert.getReportCount());
+                }
+                if (alert.getLastUpdated() != null) {
+                    update.max("lastUpdated", alert.getLastUpdated());
+                }
+                if (!update.getUpdateObject().isEmpty()) {
+                    bulk.updateOne(query(where("_id").is(alert.getId())), update);
+                    updates++;
+                }
+            }
+            if (updates > 0) {
+                bulk.execute();
+            }
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Write-behind merge of {} alerts failed, will retry: {}", alerts.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Called under lock after a flush. Everything appended before now is either
+     * flushed or still pending, so once the journal is truncated or rewritten
+     * all of it counts as synced.
+     */
+    private void compactJournal() {
+        try {
+            if (pending.isEmpty()) {
+                journal.truncate(0);
+                journal.force(false);
+            } else if (journal.size() > compactBytes) {
+                rewriteJournal();
+            } else {
+                // Flushed entries stay until the next truncation; a replay merges them as duplicates
+                return;
+            }
+            markSynced(appended);
+
+        } catch (IOException e) {
+            // Entries stay in the old journal; a replay re-inserts them as duplicates, which is harmless
+            log.warn("Failed to compact write-behind journal: {}", e.getMessage());
+        }
+    }
+
+    private void rewriteJournal() throws IOException {
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(pending.size());
+        for (Alert alert : pending.values()) {
+            lines.add(objectMapper.writeValueAsString(alert));
+        }
+        Files.write(tmp, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        journal.close();
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import com.aroundme.repository.AlertRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Single write path for new alerts.
+ * Reports that match an active incident are merged into it; new incidents are
+ * persisted synchronously or through the write-behind queue, and the active
+ * snapshot is kept in step. A client-supplied idempotency key maps to a
+ * deterministic id, so a retried submission resolves to the original alert.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertWriteService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final AlertRepository alertRepository;
+    private final ActiveAlertStore activeAlertStore;
+    private final AlertWriteBehindQueue writeBehindQueue;
+    private final IncidentClusteringService clusteringService;
+    private final MongoTemplate mongoTemplate;
+    private final AlertTrendService trendService;
+
+    @Value("${alerts.write-behind.enabled:false}")
+    private boolean writeBehind;
+
+    // Keyed id -> alert it resolved to: itself when new, or the incident a report was
+    // merged into. In memory only: a keyed retry of a merged report after a restart is merged again.
+    private final Map<String, String> resolvedKeys = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > 10_000;
+                }
+            });
+
+    public Alert write(Alert alert, String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            alert.setId(idFor(idempotencyKey));
+
+            Alert existing = findForKey(alert.getId());
+            if (existing != null) {
+                log.info("Duplicate submission for idempotency key, returning alert {}", existing.getId());
+                return existing;
+            }
+        }
+
+        Alert incident = clusteringService.findIncident(alert);
+        if (incident != null) {
+            if (alert.getId() != null) {
+                resolvedKeys.put(alert.getId(), incident.getId());
+            }
+            return merge(incident);
+        }
+
+        if (writeBehind) {
+            if (alert.getId() == null) {
+                alert.setId(new ObjectId().toHexString());
+            } else {
+                resolvedKeys.put(alert.getId(), alert.getId());
+            }
+            writeBehindQueue.enqueue(alert);
+            activeAlertStore.upsert(alert);
+            trendService.recordNewAlert(alert);
+            return alert;
+        }
+
+        Alert saved = insert(alert);
+        activeAlertStore.upsert(saved);
+        trendService.recordNewAlert(saved);
+        return saved;
+    }
+
+    /**
+     * Bulk path for imports: one unordered insert for the batch, without
+     * incident clustering. Alerts whose id already exists count as written
+     * (a re-sent import). Returns error messages by batch index for the
+     * alerts that could not be written.
+     */
+    public Map<Integer, String> writeBatch(List<Alert> alerts) {
+        Map<Integer, String> errors = new HashMap<>();
+        Set<Integer> duplicates = new HashSet<>();
+        for (Alert alert : alerts) {
+            if (alert.getId() == null) {
+                alert.setId(new ObjectId().toHexString());
+            }
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Alert.class);
+            bulk.insert(alerts);
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() == DUPLICATE_KEY) {
+                    duplicates.add(error.getIndex());
+                } else {
+                    errors.put(error.getIndex(), error.getMessage());
+                }
+            }
+        }
+
+        List<Alert> written = new ArrayList<>(alerts.size());
+        for (int i = 0; i < alerts.size(); i++) {
+            if (!errors.containsKey(i) && !duplicates.contains(i)) {
+                written.add(alerts.get(i));
+            }
+        }
+        activeAlertStore.upsertAll(written);
+        written.forEach(trendService::recordNewAlert);
+        return errors;
+    }
+
+    private Alert merge(Alert match) {
+        // The store hit is a stripped copy; merge into the full document so the
+        // submitter and image survive a write-behind replacement
+        Alert incident = findExisting(match.getId());
+        if (incident == null) {
+            incident = match;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Alert merged = incident.toBuilder()
+                .reportCount(reportCount(incident) + 1)
+                .lastUpdated(now)
+                .distanceFromUser(null)
+                .build();
+
+        if (!writeBehind || !writeBehindQueue.replacePending(merged)) {
+            Update update = incident.getReportCount() != null
+                    ? new Update().inc("reportCount", 1)
+                    : new Update().set("reportCount", merged.getReportCount());
+            mongoTemplate.updateFirst(query(where("_id").is(incident.getId())), update.set("lastUpdated", now),
+                    Alert.class);
+        }
+
+        activeAlertStore.upsert(merged);
+        trendService.recordMergedReport(merged);
+        return merged;
+    }
+
+    private int reportCount(Alert alert) {
+        return alert.getReportCount() != null ? alert.getReportCount() : 1;
+    }
+
+    private Alert insert(Alert alert) {
+        if (alert.getId() == null) {
+            return alertRepository.save(alert);
+        }
+
+        try {
+            return alertRepository.insert(alert);
+        } catch (DuplicateKeyException e) {
+            // Concurrent retry with the same key won the race
+            return alertRepository.findById(alert.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Existing alert for a keyed id. In write-behind mode a key that this node
+     * has not seen, that is not pending and that the active store does not
+     * hold is taken as a first submission without a Mongo read; a retry that
+     * slips through (after a restart, of an expired alert) meets the original
+     * as a duplicate at flush time and is merged there.
+     */
+    private Alert findForKey(String id) {
+        String resolved = resolvedKeys.get(id);
+        if (resolved != null || !writeBehind) {
+            return findExisting(resolved != null ? resolved : id);
+        }
+
+        Alert pending = writeBehindQueue.findPending(id);
+        if (pending != null) {
+            return pending;
+        }
+        return activeAlertStore.snapshot().findById(id) != null ? alertRepository.findById(id).orElse(null) : null;
+    }
+
+    /**
+     * Full document for the id: the pending write-behind version if there is
+     * one, else the stored one. Not the active store, which keeps a stripped copy.
+     */
+    private Alert findExisting(String id) {
+        Alert existing = writeBehind ? writeBehindQueue.findPending(id) : null;
+        if (existing == null) {
+            existing = alertRepository.findById(id).orElse(null);
+        }
+        return existing;
+    }
+
+    private String idFor(String idempotencyKey) {
+        return UUID.nameUUIDFromBytes(("alert:" + idempotencyKey.trim()).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
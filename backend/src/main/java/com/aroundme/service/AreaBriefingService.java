@@ -0,0 +1,252 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.UserContextRequest;
+import com.aroundme.index.ActiveAlertSnapshot;
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.index.GeoGrid;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precomputed situation summaries per grid cell and category set.
+ * A background job regenerates a briefing only when the alert set version of
+ * its area has changed, within a per-cycle budget and a per-briefing minimum
+ * interval, so the summary LLM call stays off the interactive path. The LLM
+ * calls run on a small dedicated pool, never on the shared scheduler thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AreaBriefingService {
+
+    private static final String NO_ALERTS = "No significant alerts in your area at this time.";
+
+    private final ActiveAlertStore activeAlertStore;
+    private final OpenAIReasoningService aiReasoningService;
+
+    @Value("${alerts.briefing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.briefing.radius-km:3}")
+    private double radiusKm;
+
+    @Value("${alerts.briefing.max-alerts:8}")
+    private int maxAlerts;
+
+    @Value("${alerts.briefing.max-staleness-ms:600000}")
+    private long maxStalenessMs;
+
+    @Value("${alerts.briefing.min-recompute-interval-ms:60000}")
+    private long minRecomputeIntervalMs;
+
+    @Value("${alerts.briefing.max-per-cycle:5}")
+    private int maxPerCycle;
+
+    @Value("${alerts.briefing.demand-ttl-ms:1800000}")
+    private long demandTtlMs;
+
+    @Value("${alerts.briefing.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private record BriefingKey(long cell, int categoryMask) {
+    }
+
+    private record Briefing(String summary, long version, long computedAt) {
+    }
+
+    private final Map<BriefingKey, Briefing> briefings = new ConcurrentHashMap<>();
+    private final Map<BriefingKey, Long> demand = new ConcurrentHashMap<>();
+    private final Set<BriefingKey> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(maxPerCycle, 2)), r -> {
+            Thread thread = new Thread(r, "area-briefing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Briefing for the user's cell and categories if it is current, or at most
+     * max-staleness-ms behind; otherwise a local summary of the curated alerts.
+     * Either way the area is marked as in demand for the next refresh.
+     */
+    public String summaryFor(UserContextRequest userContext, List<Alert> curatedAlerts) {
+        BriefingKey key = new BriefingKey(
+                GeoGrid.cellOf(userContext.getLatitude(), userContext.getLongitude()),
+                ActiveAlertSnapshot.categoryMask(userContext.getInterestedCategories())
+        );
+        long now = System.currentTimeMillis();
+        demand.put(key, now);
+
+        Briefing briefing = briefings.get(key);
+        if (briefing != null && (briefing.version() == areaVersion(key) || now - briefing.computedAt() <= maxStalenessMs)) {
+            return briefing.summary();
+        }
+        return localSummary(curatedAlerts);
+    }
+
+    /**
+     * Changes whenever summaryFor may return a different briefing for this context.
+     */
+    public long briefingStamp(UserContextRequest userContext) {
+        Briefing briefing = briefings.get(new BriefingKey(
+                GeoGrid.cellOf(userContext.getLatitude(), userContext.getLongitude()),
+                ActiveAlertSnapshot.categoryMask(userContext.getInterestedCategories())
+        ));
+        return briefing != null ? briefing.computedAt() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.briefing.refresh-interval-ms:30000}")
+    public void refresh() {
+        // Leave LLM capacity to interactive requests while it is backed up
+        if (!enabled || aiReasoningService.isSaturated()) return;
+
+        long now = System.currentTimeMillis();
+        demand.entrySet().removeIf(e -> now - e.getValue() > demandTtlMs);
+
+        // Most recently requested areas first, then every populated cell for all categories
+        Set<BriefingKey> keys = new LinkedHashSet<>();
+        demand.entrySet().stream()
+                .sorted(Map.Entry.<BriefingKey, Long>comparingByValue().reversed())
+                .forEach(e -> keys.add(e.getKey()));
+        for (long cell : activeAlertStore.populatedCells()) {
+            keys.add(new BriefingKey(cell, ActiveAlertSnapshot.ALL_CATEGORIES));
+        }
+        briefings.keySet().retainAll(keys);
+
+        // Calls still running from earlier cycles count against this cycle's budget
+        int budget = maxPerCycle - inFlight.size();
+        for (BriefingKey key : keys) {
+            if (budget <= 0) break;
+            if (inFlight.contains(key)) continue;
+
+            long version = areaVersion(key);
+            Briefing current = briefings.get(key);
+            if (current != null && (current.version() == version || now - current.computedAt() < minRecomputeIntervalMs)) {
+                continue;
+            }
+
+            submit(key, version);
+            budget--;
+        }
+    }
+
+    private void submit(BriefingKey key, long version) {
+        inFlight.add(key);
+        CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return compute(key, version);
+                    } finally {
+                        // Held until the call returns, so a hung provider keeps using up the budget
+                        inFlight.remove(key);
+                    }
+                }, executor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((briefing, error) -> {
+                    if (error != null) {
+                        log.warn("Briefing refresh for cell {} failed: {}", key.cell(), error.toString());
+                    } else {
+                        briefings.put(key, briefing);
+                    }
+                });
+    }
+
+    private Briefing compute(BriefingKey key, long version) {
+        double lat = GeoGrid.centerLatitude(key.cell());
+        double lng = GeoGrid.centerLongitude(key.cell());
+        List<AlertCategory> categories = categories(key.categoryMask());
+
+        List<Alert> alerts = activeAlertStore.findWithin(lat, lng, radiusKm, categories).stream()
+                .sorted(Comparator.comparing(Alert::getImpact, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparingInt(a -> a.getReportCount() != null ? -a.getReportCount() : -1))
+                .limit(maxAlerts)
+                .toList();
+
+        if (alerts.isEmpty()) {
+            return new Briefing(NO_ALERTS, version, System.currentTimeMillis());
+        }
+
+        UserContextRequest area = new UserContextRequest(
+                lat, lng, areaLabel(alerts), radiusKm, categories, null, null);
+        String summary = aiReasoningService.generateSummary(alerts, area);
+        log.debug("Refreshed briefing for cell {} ({} alerts, version {})", key.cell(), alerts.size(), version);
+
+        return new Briefing(summary, version, System.currentTimeMillis());
+    }
+
+    private long areaVersion(BriefingKey key) {
+        return activeAlertStore.areaVersion(
+                GeoGrid.centerLatitude(key.cell()), GeoGrid.centerLongitude(key.cell()), radiusKm);
+    }
+
+    private String localSummary(List<Alert> curatedAlerts) {
+        if (curatedAlerts.isEmpty()) {
+            return NO_ALERTS;
+        }
+
+        Alert top = curatedAlerts.get(0);
+        StringBuilder summary = new StringBuilder();
+        summary.append(curatedAlerts.size()).append(curatedAlerts.size() == 1 ? " alert" : " alerts")
+               .append(" near you. Most relevant: ").append(top.getTitle());
+        if (top.getImpact() != null) {
+            summary.append(" (").append(top.getImpact()).append(" impact)");
+        }
+        return summary.append(".").toString();
+    }
+
+    private String areaLabel(List<Alert> alerts) {
+        Alert top = alerts.get(0);
+        String address = top.getLocation().getAddress();
+        String city = top.getLocation().getCity();
+        if (address == null || address.isBlank()) {
+            return city != null ? city : "this area";
+        }
+        return city != null && !address.contains(city) ? address + ", " + city : address;
+    }
+
+    private List<AlertCategory> categories(int mask) {
+        if (mask == ActiveAlertSnapshot.ALL_CATEGORIES) {
+            return null;
+        }
+
+        List<AlertCategory> categories = new ArrayList<>();
+        for (AlertCategory category : AlertCategory.values()) {
+            if ((mask & (1 << category.ordinal())) != 0) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+}
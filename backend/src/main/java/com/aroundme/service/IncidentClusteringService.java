@@ -0,0 +1,94 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import com.aroundme.util.TextTokens;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Matches a new report against active incidents of the same category that are
+ * close in space and time and describe the same thing, so duplicate reports are
+ * merged instead of becoming separate alerts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IncidentClusteringService {
+
+    private final ActiveAlertStore activeAlertStore;
+
+    @Value("${alerts.clustering.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.clustering.radius-m:300}")
+    private double radiusMeters;
+
+    @Value("${alerts.clustering.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${alerts.clustering.min-similarity:0.35}")
+    private double minSimilarity;
+
+    /**
+     * Best matching active incident for the report, or null if it is a new incident.
+     */
+    public Alert findIncident(Alert report) {
+        if (!enabled || report.getLocation() == null || report.getLocation().getLatitude() == null
+                || report.getLocation().getLongitude() == null || report.getCategory() == null) {
+            return null;
+        }
+
+        LocalDateTime reportedAt = report.getTimestamp() != null ? report.getTimestamp() : LocalDateTime.now();
+        List<Alert> nearby = activeAlertStore.findWithin(
+                report.getLocation().getLatitude(),
+                report.getLocation().getLongitude(),
+                radiusMeters / 1000.0,
+                List.of(report.getCategory())
+        );
+
+        Alert best = null;
+        double bestScore = 0;
+        for (Alert candidate : nearby) {
+            if (!withinWindow(candidate, reportedAt)) continue;
+
+            double score = similarity(report, candidate);
+            if (score < minSimilarity) continue;
+
+            if (best == null || score > bestScore || (score == bestScore
+                    && candidate.getDistanceFromUser() < best.getDistanceFromUser())) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+
+        if (best != null) {
+            log.info("Report '{}' matches incident {} (similarity {})",
+                    report.getTitle(), best.getId(), String.format("%.2f", bestScore));
+        }
+        return best;
+    }
+
+    private boolean withinWindow(Alert incident, LocalDateTime reportedAt) {
+        LocalDateTime last = incident.getLastUpdated() != null ? incident.getLastUpdated() : incident.getTimestamp();
+        if (last == null) {
+            return false;
+        }
+        return Duration.between(last, reportedAt).abs().toMinutes() <= windowMinutes;
+    }
+
+    private double similarity(Alert report, Alert incident) {
+        // Titles carry most of the signal; full text catches reworded titles
+        double titles = TextTokens.jaccard(report.getTitle(), incident.getTitle());
+        double full = TextTokens.jaccard(
+                report.getTitle() + " " + report.getDescription(),
+                incident.getTitle() + " " + incident.getDescription());
+        return Math.max(titles, full);
+    }
+}
@@ -0,0 +1,91 @@
+package com.aroundme.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * One on-demand Flight Recorder recording at a time, bounded in duration,
+ * age and size so it can be left running on a live node.
+ * The recording includes the com.aroundme pipeline events.
+ */
+@Slf4j
+@Service
+public class JfrRecordingService {
+
+    @Value("${admin.jfr.max-duration-seconds:900}")
+    private long maxDurationSeconds;
+
+    @Value("${admin.jfr.max-size-mb:100}")
+    private long maxSizeMb;
+
+    private Recording recording;
+
+    /**
+     * Start a recording with the named JFC settings ("default" or "profile").
+     * Returns false if one is already running.
+     */
+    public synchronized boolean start(String settings, long durationSeconds) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        close();
+
+        Recording fresh = new Recording(Configuration.getConfiguration(settings));
+        fresh.setName("aroundme-on-demand");
+        fresh.setDuration(Duration.ofSeconds(Math.min(Math.max(durationSeconds, 1), maxDurationSeconds)));
+        fresh.setMaxSize(maxSizeMb * 1024 * 1024);
+        fresh.setToDisk(true);
+        fresh.start();
+        recording = fresh;
+
+        log.info("Started JFR recording ({} settings, {} s)", settings, fresh.getDuration().toSeconds());
+        return true;
+    }
+
+    /**
+     * Stop the running recording; it stays available for download.
+     */
+    public synchronized boolean stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return false;
+        }
+        recording.stop();
+        log.info("Stopped JFR recording");
+        return true;
+    }
+
+    /**
+     * Copy of the current recording (running or stopped) in a temporary file,
+     * or null if there is none. The caller deletes the file.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.NEW
+                || recording.getState() == RecordingState.CLOSED) {
+            return null;
+        }
+        Path file = Files.createTempFile("aroundme-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    public synchronized String state() {
+        return recording != null ? recording.getState().name() : "NONE";
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
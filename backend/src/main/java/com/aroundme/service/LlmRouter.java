@@ -0,0 +1,165 @@
+package com.aroundme.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the model profile and token limit for each LLM task and accounts
+ * for tokens, latency and estimated cost per task and model, and per request
+ * within a usage scope. Summaries and RSS conversion default to the light
+ * profile; curation uses the strong one unless adaptive routing finds the
+ * candidate set small or the strong model slower than the latency budget.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LlmRouter {
+
+    public record Profile(String name, String model, double inputCostPer1k, double outputCostPer1k) {
+    }
+
+    public record Route(LlmTask task, Profile profile, int maxTokens) {
+    }
+
+    /**
+     * Totals for the LLM calls made by one request.
+     */
+    @Getter
+    public static final class Usage {
+        private int calls;
+        private long promptTokens;
+        private long completionTokens;
+        private long latencyMs;
+        private double cost;
+    }
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final int LATENCY_PROBE_EVERY = 10;
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadLocal<Usage> requestUsage = new ThreadLocal<>();
+
+    @Value("${openai.profiles.strong.model:${openai.model}}")
+    private String strongModel;
+
+    @Value("${openai.profiles.strong.input-cost-per-1k:0.0005}")
+    private double strongInputCost;
+
+    @Value("${openai.profiles.strong.output-cost-per-1k:0.0015}")
+    private double strongOutputCost;
+
+    @Value("${openai.profiles.light.model:${openai.model}}")
+    private String lightModel;
+
+    @Value("${openai.profiles.light.input-cost-per-1k:0.0005}")
+    private double lightInputCost;
+
+    @Value("${openai.profiles.light.output-cost-per-1k:0.0015}")
+    private double lightOutputCost;
+
+    @Value("${openai.tasks.curation.max-tokens:2000}")
+    private int curationMaxTokens;
+
+    @Value("${openai.tasks.summary.max-tokens:150}")
+    private int summaryMaxTokens;
+
+    @Value("${openai.tasks.rss.max-tokens:200}")
+    private int rssMaxTokens;
+
+    @Value("${openai.routing.adaptive:true}")
+    private boolean adaptive;
+
+    @Value("${openai.routing.small-candidate-set:5}")
+    private int smallCandidateSet;
+
+    @Value("${openai.routing.latency-budget-ms:6000}")
+    private long latencyBudgetMs;
+
+    // Smoothed latency of the strong profile; 0 until the first call
+    private volatile double strongLatencyMs;
+    private final AtomicLong overBudgetRoutes = new AtomicLong();
+
+    public Route route(LlmTask task, int candidates) {
+        return switch (task) {
+            case CURATION -> new Route(task, useLightForCuration(candidates) ? light() : strong(), curationMaxTokens);
+            case SUMMARY -> new Route(task, light(), summaryMaxTokens);
+            case RSS_CONVERSION -> new Route(task, light(), rssMaxTokens);
+        };
+    }
+
+    /**
+     * Record one completed (or failed) call. Token counts are null when the
+     * provider did not report usage.
+     */
+    public void record(Route route, long latencyNanos, Long promptTokens, Long completionTokens, boolean succeeded) {
+        String task = route.task().name().toLowerCase();
+        String model = route.profile().model();
+        long prompt = promptTokens != null ? promptTokens : 0;
+        long completion = completionTokens != null ? completionTokens : 0;
+        double cost = (prompt * route.profile().inputCostPer1k() + completion * route.profile().outputCostPer1k()) / 1000;
+
+        Timer.builder("llm.latency").tag("task", task).tag("model", model)
+                .tag("outcome", succeeded ? "success" : "error")
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("llm.tokens", "task", task, "model", model, "type", "prompt").increment(prompt);
+        meterRegistry.counter("llm.tokens", "task", task, "model", model, "type", "completion").increment(completion);
+        meterRegistry.counter("llm.cost.usd", "task", task, "model", model).increment(cost);
+
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        if (route.profile().name().equals("strong")) {
+            double previous = strongLatencyMs;
+            strongLatencyMs = previous == 0 ? latencyMs : previous + LATENCY_SMOOTHING * (latencyMs - previous);
+        }
+
+        Usage usage = requestUsage.get();
+        if (usage != null) {
+            usage.calls++;
+            usage.promptTokens += prompt;
+            usage.completionTokens += completion;
+            usage.latencyMs += latencyMs;
+            usage.cost += cost;
+        }
+    }
+
+    /**
+     * Collect usage of the LLM calls made on this thread until endRequest.
+     */
+    public void beginRequest() {
+        requestUsage.set(new Usage());
+    }
+
+    public Usage endRequest() {
+        Usage usage = requestUsage.get();
+        requestUsage.remove();
+        return usage;
+    }
+
+    private boolean useLightForCuration(int candidates) {
+        if (!adaptive || lightModel.equals(strongModel)) {
+            return false;
+        }
+        if (candidates <= smallCandidateSet) {
+            return true;
+        }
+        // While over budget, still send every Nth curation to the strong model to notice recovery
+        return strongLatencyMs > latencyBudgetMs
+                && overBudgetRoutes.incrementAndGet() % LATENCY_PROBE_EVERY != 0;
+    }
+
+    private Profile strong() {
+        return new Profile("strong", strongModel, strongInputCost, strongOutputCost);
+    }
+
+    private Profile light() {
+        return new Profile("light", lightModel, lightInputCost, lightOutputCost);
+    }
+}
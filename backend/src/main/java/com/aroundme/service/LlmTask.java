@@ -0,0 +1,10 @@
+package com.aroundme.service;
+
+/**
+ * Kinds of LLM call, each routed to its own model profile and token limit.
+ */
+public enum LlmTask {
+    CURATION,
+    SUMMARY,
+    RSS_CONVERSION
+}
@@ -0,0 +1,120 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.UserContextRequest;
+import com.aroundme.index.TextRelevanceIndex;
+import com.aroundme.model.Alert;
+import com.aroundme.model.ImpactLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Offline-capable relevance ranking: intent/destination similarity from the
+ * TextRelevanceIndex blended with proximity, impact and report count.
+ * Used to pre-filter candidates before the LLM and to curate without it.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocalRankingService {
+
+    private final TextRelevanceIndex textIndex;
+
+    @Value("${alerts.semantic.weight.text:0.5}")
+    private double textWeight;
+
+    @Value("${alerts.semantic.weight.distance:0.25}")
+    private double distanceWeight;
+
+    @Value("${alerts.semantic.weight.impact:0.15}")
+    private double impactWeight;
+
+    @Value("${alerts.semantic.weight.reports:0.1}")
+    private double reportsWeight;
+
+    /**
+     * Score every candidate (relevanceScore, 0-100) and return them best first.
+     */
+    public List<Alert> rank(List<Alert> candidates, UserContextRequest userContext) {
+        TextRelevanceIndex.TermVector query = textIndex.vectorize(queryText(userContext));
+        double radius = userContext.getRadiusKm() != null && userContext.getRadiusKm() > 0
+                ? userContext.getRadiusKm() : 5;
+        double totalWeight = (query.isEmpty() ? 0 : textWeight) + distanceWeight + impactWeight + reportsWeight;
+
+        for (Alert alert : candidates) {
+            double score = 0;
+            if (!query.isEmpty()) {
+                score += textWeight * textIndex.score(query, alert);
+            }
+            if (alert.getDistanceFromUser() != null) {
+                score += distanceWeight * (1 - Math.min(alert.getDistanceFromUser() / radius, 1));
+            }
+            score += impactWeight * impactScore(alert.getImpact());
+            score += reportsWeight * Math.min(Math.log(reportCount(alert)) / Math.log(16), 1);
+
+            alert.setRelevanceScore(Math.round(score / totalWeight * 1000) / 10.0);
+        }
+
+        List<Alert> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.comparing(Alert::getRelevanceScore).reversed());
+        return ranked;
+    }
+
+    /**
+     * Top alerts from an already ranked list, with a templated explanation in
+     * place of the LLM's. Used when the LLM is skipped or unavailable.
+     */
+    public List<Alert> curateOffline(List<Alert> ranked, UserContextRequest userContext, int limit) {
+        String plans = queryText(userContext).trim();
+        TextRelevanceIndex.TermVector query = textIndex.vectorize(plans);
+
+        return ranked.stream()
+                .limit(limit)
+                .peek(alert -> alert.setWhyItMatters(explain(alert, plans, textIndex.score(query, alert))))
+                .toList();
+    }
+
+    private String explain(Alert alert, String plans, double similarity) {
+        StringBuilder why = new StringBuilder();
+        if (similarity >= 0.2 && !plans.isEmpty()) {
+            why.append("Related to your plans (").append(plans).append("). ");
+        }
+        if (alert.getDistanceFromUser() != null) {
+            why.append(String.format("%.1f km from you", alert.getDistanceFromUser()));
+        } else {
+            why.append("In your area");
+        }
+        if (reportCount(alert) > 1) {
+            why.append(", reported by ").append(reportCount(alert)).append(" people");
+        }
+        return why.append(".").toString();
+    }
+
+    private String queryText(UserContextRequest userContext) {
+        StringBuilder text = new StringBuilder();
+        if (userContext.getIntent() != null) {
+            text.append(userContext.getIntent()).append(' ');
+        }
+        if (userContext.getDestination() != null) {
+            text.append(userContext.getDestination());
+        }
+        return text.toString();
+    }
+
+    private double impactScore(ImpactLevel impact) {
+        if (impact == null) return 0.33;
+        return switch (impact) {
+            case HIGH -> 1.0;
+            case MEDIUM -> 0.66;
+            case LOW -> 0.33;
+            case INFO -> 0.0;
+        };
+    }
+
+    private int reportCount(Alert alert) {
+        return alert.getReportCount() != null ? Math.max(alert.getReportCount(), 1) : 1;
+    }
+}
@@ -4,6 +4,7 @@ import com.aroundme.model.Alert;
 import com.aroundme.model.AlertCategory;
 import com.aroundme.model.ImpactLevel;
 import com.aroundme.model.Location;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -11,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+@Lazy
 @Service
 public class MockDataService {
     
@@ -1,19 +1,27 @@
 package com.aroundme.service;
 
 import com.aroundme.dto.UserContextRequest;
+import com.aroundme.jfr.OpenAICallEvent;
+import com.aroundme.jfr.PromptBuildEvent;
+import com.aroundme.jfr.ResponseParseEvent;
 import com.aroundme.model.*;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
 import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,10 +30,57 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class OpenAIReasoningService {
     
-    private final OpenAiService openAiService;
+    private final ObjectProvider<OpenAiService> openAiService;
+    private final LocalRankingService localRankingService;
+    private final MeterRegistry meterRegistry;
+    private final LlmRouter llmRouter;
     
-    @Value("${openai.model}")
-    private String model;
+    @Value("${alerts.admission.llm.max-in-flight:8}")
+    private int maxInFlight;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("alerts.llm.in_flight", inFlight, AtomicInteger::get)
+                .description("OpenAI calls currently waiting for a response")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * True when enough LLM calls are already waiting that new interactive work
+     * should be served without the LLM.
+     */
+    public boolean isSaturated() {
+        return inFlight.get() >= maxInFlight;
+    }
+    
+    private ChatCompletionResult complete(LlmRouter.Route route, ChatCompletionRequest request) {
+        OpenAICallEvent event = new OpenAICallEvent();
+        event.begin();
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        ChatCompletionResult result = null;
+        try {
+            result = openAiService.getObject().createChatCompletion(request);
+            return result;
+        } finally {
+            inFlight.decrementAndGet();
+            Long promptTokens = result != null && result.getUsage() != null ? result.getUsage().getPromptTokens() : null;
+            Long completionTokens = result != null && result.getUsage() != null ? result.getUsage().getCompletionTokens() : null;
+            llmRouter.record(route, System.nanoTime() - start, promptTokens, completionTokens, result != null);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = route.task().name().toLowerCase();
+                event.model = route.profile().model();
+                event.promptTokens = promptTokens != null ? promptTokens : 0;
+                event.completionTokens = completionTokens != null ? completionTokens : 0;
+                event.succeeded = result != null;
+                event.commit();
+            }
+        }
+    }
     
     /**
      * Core AI reasoning method - Analyzes alerts and user context
@@ -36,33 +91,54 @@ public class OpenAIReasoningService {
         
         try {
             // Build the AI prompt
+            PromptBuildEvent promptEvent = new PromptBuildEvent();
+            promptEvent.begin();
             String prompt = buildCurationPrompt(rawAlerts, userContext);
+            promptEvent.end();
+            if (promptEvent.shouldCommit()) {
+                promptEvent.operation = "curate";
+                promptEvent.alerts = rawAlerts.size();
+                promptEvent.chars = prompt.length();
+                promptEvent.commit();
+            }
             
             // Call OpenAI
+            LlmRouter.Route route = llmRouter.route(LlmTask.CURATION, rawAlerts.size());
             ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
+                    .model(route.profile().model())
                     .messages(List.of(
                             new ChatMessage(ChatMessageRole.SYSTEM.value(), getSystemPrompt()),
                             new ChatMessage(ChatMessageRole.USER.value(), prompt)
                     ))
                     .temperature(0.7)
-                    .maxTokens(2000)
+                    .maxTokens(route.maxTokens())
                     .build();
             
-            ChatCompletionResult result = openAiService.createChatCompletion(request);
+            ChatCompletionResult result = complete(route, request);
             String aiResponse = result.getChoices().get(0).getMessage().getContent();
             
             log.debug("OpenAI Response: {}", aiResponse);
             
             // Parse AI response and update alerts
-            return parseAIResponse(aiResponse, rawAlerts);
+            ResponseParseEvent parseEvent = new ResponseParseEvent();
+            parseEvent.begin();
+            List<Alert> curated = parseAIResponse(aiResponse, rawAlerts);
+            parseEvent.end();
+            if (parseEvent.shouldCommit()) {
+                parseEvent.chars = aiResponse.length();
+                parseEvent.alerts = curated.size();
+                parseEvent.commit();
+            }
+            if (curated.isEmpty()) {
+                log.warn("AI response contained no usable alerts, falling back to local ranking");
+                return localRankingService.curateOffline(rawAlerts, userContext, 5);
+            }
+            return curated;
             
         } catch (Exception e) {
             log.error("Error in AI curation", e);
-            // Fallback: return alerts sorted by timestamp
-            return rawAlerts.stream()
-                    .limit(5)
-                    .toList();
+            // Fallback: local relevance ranking (candidates arrive ranked best first)
+            return localRankingService.curateOffline(rawAlerts, userContext, 5);
         }
     }
     
@@ -119,6 +195,9 @@ public class OpenAIReasoningService {
             prompt.append("Category: ").append(alert.getCategory()).append("\n");
             prompt.append("Location: ").append(alert.getLocation().getAddress()).append("\n");
             prompt.append("Distance: ").append(String.format("%.2f", alert.getDistanceFromUser())).append(" km\n");
+            if (alert.getReportCount() != null && alert.getReportCount() > 1) {
+                prompt.append("Reports: ").append(alert.getReportCount()).append(" independent reports\n");
+            }
             prompt.append("---\n\n");
         }
         
@@ -211,18 +290,19 @@ public class OpenAIReasoningService {
         try {
             String prompt = buildSummaryPrompt(curatedAlerts, userContext);
             
+            LlmRouter.Route route = llmRouter.route(LlmTask.SUMMARY, curatedAlerts.size());
             ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
+                    .model(route.profile().model())
                     .messages(List.of(
                             new ChatMessage(ChatMessageRole.SYSTEM.value(), 
                                     "You are a concise city awareness assistant. Summarize the key situation in 2-3 sentences."),
                             new ChatMessage(ChatMessageRole.USER.value(), prompt)
                     ))
                     .temperature(0.7)
-                    .maxTokens(150)
+                    .maxTokens(route.maxTokens())
                     .build();
             
-            ChatCompletionResult result = openAiService.createChatCompletion(request);
+            ChatCompletionResult result = complete(route, request);
             return result.getChoices().get(0).getMessage().getContent();
             
         } catch (Exception e) {
@@ -273,18 +353,19 @@ public class OpenAIReasoningService {
             LOCATION:
             """.formatted(item.getTitle(), item.getDescription());
 
+            LlmRouter.Route route = llmRouter.route(LlmTask.RSS_CONVERSION, 1);
             ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
+                    .model(route.profile().model())
                     .messages(List.of(
                             new ChatMessage(ChatMessageRole.SYSTEM.value(),
                                     "You convert news into structured city alerts."),
                             new ChatMessage(ChatMessageRole.USER.value(), prompt)
                     ))
                     .temperature(0.2) // IMPORTANT: keep deterministic
-                    .maxTokens(200)
+                    .maxTokens(route.maxTokens())
                     .build();
 
-            ChatCompletionResult result = openAiService.createChatCompletion(request);
+            ChatCompletionResult result = complete(route, request);
             String response = result.getChoices().get(0).getMessage().getContent();
 
             log.debug("RSS AI response: {}", response);
@@ -305,7 +386,8 @@ public class OpenAIReasoningService {
             alert.setActive(true);
             alert.setSubmittedBy("Public RSS Feed");
 
-            // IMPORTANT: do NOT fake coordinates
+            // IMPORTANT: do NOT fake coordinates; RssAlertConverter resolves the
+            // location text against the gazetteer
             alert.setLocation(new Location(
                     22.3072,   // Vadodara center fallback
                     73.1812,
@@ -0,0 +1,187 @@
+package com.aroundme.service;
+
+import com.aroundme.index.Gazetteer;
+import com.aroundme.model.*;
+import com.aroundme.repository.AlertRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Converts RSS items to alerts with a local naive Bayes classifier trained on
+ * previously ingested, LLM-labelled RSS alerts. Only items the classifier is
+ * unsure about (or a small audit sample) go to the LLM, whose labels are fed
+ * back as training data. Each alert records which of the two labelled it, so
+ * the classifier is never retrained on its own predictions.
+ */
+@Slf4j
+@Lazy
+@Service
+@RequiredArgsConstructor
+public class RssAlertConverter {
+
+    static final String RSS_SUBMITTER = "Public RSS Feed";
+
+    private static final int MAX_SUMMARY_LENGTH = 200;
+
+    private final AlertRepository alertRepository;
+    private final OpenAIReasoningService aiReasoningService;
+    private final MeterRegistry meterRegistry;
+    private final Gazetteer gazetteer;
+
+    @Value("${rss.classifier.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rss.classifier.min-confidence:0.8}")
+    private double minConfidence;
+
+    @Value("${rss.classifier.min-training-docs:50}")
+    private int minTrainingDocs;
+
+    @Value("${rss.classifier.audit-sample-rate:0.05}")
+    private double auditSampleRate;
+
+    private final RssCategoryClassifier classifier = new RssCategoryClassifier();
+    private boolean trained;
+
+    /**
+     * Alert for the item, or null if it should be ignored.
+     */
+    public Alert convert(RssItem item) {
+        Alert alert = enabled ? classify(item) : llmAlert(item);
+        return alert != null ? locate(alert, item) : null;
+    }
+
+    private Alert classify(RssItem item) {
+        String text = text(item);
+        RssCategoryClassifier.Prediction prediction = predict(text);
+        boolean confident = prediction != null
+                && prediction.confidence() >= minConfidence
+                && trainingSize() >= minTrainingDocs;
+
+        if (confident && ThreadLocalRandom.current().nextDouble() >= auditSampleRate) {
+            counter("rss.classifier.local").increment();
+            return localAlert(item, prediction.category());
+        }
+
+        counter("rss.classifier.escalated").increment();
+        Alert alert = llmAlert(item);
+        if (alert == null) {
+            // Ignored by the LLM or the call failed; keep the local result when there is one
+            return confident ? localAlert(item, prediction.category()) : null;
+        }
+
+        if (prediction != null && alert.getCategory() != null) {
+            boolean agree = prediction.category() == alert.getCategory();
+            meterRegistry.counter("rss.classifier.agreement", "result", agree ? "agree" : "disagree").increment();
+        }
+        if (alert.getCategory() != null) {
+            learn(text, alert.getCategory());
+        }
+        return alert;
+    }
+
+    private synchronized RssCategoryClassifier.Prediction predict(String text) {
+        ensureTrained();
+        return classifier.predict(text);
+    }
+
+    private synchronized void learn(String text, AlertCategory category) {
+        classifier.learn(text, category);
+    }
+
+    private synchronized int trainingSize() {
+        return classifier.trainingSize();
+    }
+
+    private void ensureTrained() {
+        if (trained) return;
+        trained = true;
+
+        try {
+            int examples = 0;
+            for (Alert alert : alertRepository.findClassificationExamples(RSS_SUBMITTER, CategorySource.LLM)) {
+                classifier.learn(text(alert.getTitle(), alert.getDescription()), alert.getCategory());
+                examples++;
+            }
+            log.info("RSS classifier trained on {} labelled alerts", examples);
+        } catch (Exception e) {
+            log.warn("Could not load RSS classifier training data: {}", e.getMessage());
+        }
+    }
+
+    private Alert llmAlert(RssItem item) {
+        Alert alert = aiReasoningService.convertRssToAlert(item);
+        if (alert != null) {
+            alert.setCategorySource(CategorySource.LLM);
+        }
+        return alert;
+    }
+
+    private Alert localAlert(RssItem item, AlertCategory category) {
+        Alert alert = new Alert();
+        alert.setTitle(item.getTitle());
+        alert.setDescription(summarize(item));
+        alert.setCategory(category);
+        alert.setImpact(ImpactLevel.INFO);
+        alert.setActive(true);
+        alert.setSubmittedBy(RSS_SUBMITTER);
+        alert.setCategorySource(CategorySource.LOCAL);
+        alert.setLocation(new Location(22.3072, 73.1812, null, "Vadodara"));
+        return alert;
+    }
+
+    /**
+     * Place the alert at the most specific gazetteer match in its location text,
+     * else in its title or description. Unresolved alerts keep the Vadodara centre fallback.
+     */
+    private Alert locate(Alert alert, RssItem item) {
+        Location location = alert.getLocation();
+        String locationText = location != null ? location.getAddress() : null;
+
+        Gazetteer.Place place = gazetteer.resolve(locationText);
+        if (place == null) {
+            place = gazetteer.resolveInText(item.getTitle(), item.getDescription());
+        }
+        if (place != null) {
+            String address = locationText != null && !locationText.isBlank() ? locationText : place.name();
+            alert.setLocation(new Location(place.latitude(), place.longitude(), address, place.city()));
+        } else if (location != null && (locationText == null || locationText.isBlank())) {
+            location.setAddress(location.getCity());
+        }
+        return alert;
+    }
+
+    // Extractive summary: the description's first sentence, or the title
+    private String summarize(RssItem item) {
+        String source = item.getDescription() != null && !item.getDescription().isBlank()
+                ? item.getDescription().replaceAll("<[^>]+>", " ").replaceAll("\\s+", " ").trim()
+                : Objects.toString(item.getTitle(), "");
+
+        int end = source.indexOf(". ");
+        String sentence = end > 0 ? source.substring(0, end + 1) : source;
+        if (sentence.length() > MAX_SUMMARY_LENGTH) {
+            sentence = sentence.substring(0, MAX_SUMMARY_LENGTH - 3).trim() + "...";
+        }
+        return sentence;
+    }
+
+    private Counter counter(String name) {
+        return meterRegistry.counter(name);
+    }
+
+    private static String text(RssItem item) {
+        return text(item.getTitle(), item.getDescription());
+    }
+
+    private static String text(String title, String description) {
+        return Objects.toString(title, "") + " " + Objects.toString(description, "");
+    }
+}
@@ -0,0 +1,81 @@
+package com.aroundme.service;
+
+import com.aroundme.model.AlertCategory;
+import com.aroundme.util.TextTokens;
+
+/**
+ * Multinomial naive Bayes over hashed unigrams and bigrams, with Laplace smoothing
+ * of both the priors and the feature likelihoods, so a category without examples
+ * still competes instead of dropping out.
+ * Learns incrementally from labelled examples; not thread-safe on its own,
+ * callers serialize access.
+ */
+class RssCategoryClassifier {
+
+    static final int DIMENSIONS = 1 << 16;
+    // Below this, one well-trained category wins on its prior alone
+    static final int MIN_CATEGORY_DOCUMENTS = 5;
+
+    record Prediction(AlertCategory category, double confidence) {
+    }
+
+    private static final AlertCategory[] CATEGORIES = AlertCategory.values();
+
+    private final int[][] featureCounts = new int[CATEGORIES.length][DIMENSIONS];
+    private final long[] featureTotals = new long[CATEGORIES.length];
+    private final int[] documents = new int[CATEGORIES.length];
+    private int totalDocuments;
+
+    void learn(String text, AlertCategory category) {
+        int c = category.ordinal();
+        for (int feature : TextTokens.hashedNgrams(text, DIMENSIONS)) {
+            featureCounts[c][feature]++;
+            featureTotals[c]++;
+        }
+        documents[c]++;
+        totalDocuments++;
+    }
+
+    int trainingSize() {
+        return totalDocuments;
+    }
+
+    /**
+     * Most likely category with its posterior probability, or null until at
+     * least two categories have MIN_CATEGORY_DOCUMENTS examples each.
+     */
+    Prediction predict(String text) {
+        int trainedCategories = 0;
+        for (int count : documents) {
+            if (count >= MIN_CATEGORY_DOCUMENTS) trainedCategories++;
+        }
+        if (trainedCategories < 2) {
+            return null;
+        }
+
+        int[] features = TextTokens.hashedNgrams(text, DIMENSIONS);
+        double[] logPosterior = new double[CATEGORIES.length];
+        double best = Double.NEGATIVE_INFINITY;
+        int bestClass = -1;
+
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            double score = Math.log((documents[c] + 1.0) / (totalDocuments + CATEGORIES.length));
+            double denominator = Math.log(featureTotals[c] + (double) DIMENSIONS);
+            for (int feature : features) {
+                score += Math.log(featureCounts[c][feature] + 1.0) - denominator;
+            }
+            logPosterior[c] = score;
+            if (score > best) {
+                best = score;
+                bestClass = c;
+            }
+        }
+
+        // Normalize in log space to get the winning class's posterior
+        double sum = 0;
+        for (double score : logPosterior) {
+            sum += Math.exp(score - best);
+        }
+        return new Prediction(CATEGORIES[bestClass], 1.0 / sum);
+    }
+}
@@ -1,21 +1,22 @@
 package com.aroundme.service;
 
 import com.aroundme.model.*;
-import com.aroundme.repository.AlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
+@Lazy
 @Service
 @RequiredArgsConstructor
 public class RssIngestService {
 
-    private final AlertRepository alertRepository;
-    private final OpenAIReasoningService aiReasoningService;
+    private final AlertWriteService alertWriteService;
+    private final RssAlertConverter rssAlertConverter;
 
     public int ingest() {
         // Step 1: Fetch RSS items (hardcode 1–2 feeds)
@@ -25,14 +26,16 @@ public class RssIngestService {
 
         for (RssItem item : items) {
 
-            // Step 2: Ask GPT to convert RSS → Alert
-            Alert alert = aiReasoningService.convertRssToAlert(item);
+            // Step 2: Classify locally, asking GPT only when unsure
+            Alert alert = rssAlertConverter.convert(item);
 
             if (alert != null) {
                 alert.setTimestamp(LocalDateTime.now());
+                alert.setLastUpdated(alert.getTimestamp());
+                alert.setReportCount(1);
                 alert.setActive(true);
-                alert.setSubmittedBy("Public RSS Feed");
-                alertRepository.save(alert);
+                alert.setSubmittedBy(RssAlertConverter.RSS_SUBMITTER);
+                alertWriteService.write(alert, null);
                 saved++;
             }
         }
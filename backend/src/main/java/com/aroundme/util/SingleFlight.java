@@ -0,0 +1,67 @@
+package com.aroundme.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with an equal key into one execution.
+ * The first caller runs the work; callers arriving while it is in flight wait
+ * for and share its result (or its exception). Nothing is cached afterwards.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    public V execute(K key, Supplier<V> work) {
+        calls.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        executions.increment();
+        try {
+            V result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long executions() {
+        return executions.sum();
+    }
+
+    /**
+     * Fraction of calls that were served by another caller's execution.
+     */
+    public double coalescingRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : 1.0 - (double) executions.sum() / total;
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.aroundme.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Shared tokenizer for local text matching: lowercase alphanumeric words
+ * with common English stopwords removed.
+ */
+public final class TextTokens {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have",
+            "in", "is", "it", "its", "near", "of", "on", "or", "the", "to", "was", "were",
+            "will", "with", "this", "that", "there", "due", "till", "until", "into", "about"
+    );
+
+    private TextTokens() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (token.length() > 1 && !STOPWORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Unigram and bigram features of the text hashed into [0, dimensions),
+     * one entry per occurrence. dimensions must be a power of two.
+     */
+    public static int[] hashedNgrams(String text, int dimensions) {
+        List<String> tokens = tokenize(text);
+        int[] features = new int[Math.max(0, tokens.size() * 2 - 1)];
+        int n = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            features[n++] = bucket(tokens.get(i), dimensions);
+            if (i > 0) {
+                features[n++] = bucket(tokens.get(i - 1) + ' ' + tokens.get(i), dimensions);
+            }
+        }
+        return features;
+    }
+
+    private static int bucket(String token, int dimensions) {
+        int h = token.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (dimensions - 1);
+    }
+
+    /**
+     * Jaccard similarity of the two texts' token sets, in [0, 1].
+     */
+    public static double jaccard(String a, String b) {
+        Set<String> left = new HashSet<>(tokenize(a));
+        Set<String> right = new HashSet<>(tokenize(b));
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0;
+        }
+
+        int common = 0;
+        for (String token : left) {
+            if (right.contains(token)) common++;
+        }
+        return (double) common / (left.size() + right.size() - common);
+    }
+}
@@ -0,0 +1,128 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Change sequence, cell versions and the bounded change log behind delta sync.
+ */
+class ActiveAlertStoreTest {
+
+    private ActiveAlertStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ActiveAlertStore(null,
+                new DefaultListableBeanFactory().getBeanProvider(ActiveAlertListener.class));
+        ReflectionTestUtils.setField(store, "maxChanges", 1000);
+    }
+
+    @Test
+    void changesAreLoggedInSequenceOrder() {
+        store.upsert(alert("a", "Waterlogging", 22.31, 73.17));
+        store.upsert(alert("b", "Road closed", 18.52, 73.85));
+        store.upsert(alert("a", "Waterlogging, knee deep", 22.31, 73.17));
+        store.remove("b");
+
+        ActiveAlertStore.Changes changes = store.changesSince(0);
+        assertTrue(changes.complete());
+        assertEquals(List.of(1L, 2L, 3L, 4L), sequences(changes));
+        assertEquals(4, store.version());
+
+        ActiveAlertStore.Change update = changes.changes().get(2);
+        assertEquals("Waterlogging", update.previous().getTitle());
+        assertEquals("Waterlogging, knee deep", update.current().getTitle());
+        ActiveAlertStore.Change removal = changes.changes().get(3);
+        assertEquals("b", removal.previous().getId());
+        assertNull(removal.current());
+    }
+
+    @Test
+    void cellsCarryTheSequenceOfTheirLatestChange() {
+        store.upsert(alert("a", "Waterlogging", 22.31, 73.17));
+        store.upsert(alert("b", "Road closed", 18.52, 73.85));
+        store.upsert(alert("a", "Waterlogging, knee deep", 22.31, 73.17));
+
+        assertEquals(3, store.cellVersion(GeoGrid.cellOf(22.31, 73.17)));
+        assertEquals(2, store.cellVersion(GeoGrid.cellOf(18.52, 73.85)));
+        assertEquals(3, store.areaVersion(22.31, 73.17, 2));
+        assertEquals(2, store.areaVersion(18.52, 73.85, 2));
+        assertEquals(0, store.areaVersion(28.61, 77.21, 2));
+    }
+
+    @Test
+    void unchangedUpsertIsNotAChange() {
+        Alert alert = alert("a", "Waterlogging", 22.31, 73.17);
+        store.upsert(alert);
+        store.upsert(alert.toBuilder().submittedBy("someone else").build());
+        store.remove("missing");
+
+        assertEquals(1, store.version());
+        assertEquals(1, store.changesSince(0).changes().size());
+    }
+
+    @Test
+    void batchUpsertStampsEachAlert() {
+        store.upsertAll(List.of(
+                alert("a", "Waterlogging", 22.31, 73.17),
+                alert("b", "Road closed", 18.52, 73.85)));
+
+        assertEquals(List.of(1L, 2L), sequences(store.changesSince(0)));
+        assertEquals(2, store.snapshot().size());
+    }
+
+    @Test
+    void changesSinceReportsIncompleteOnceTheLogIsTruncated() {
+        ReflectionTestUtils.setField(store, "maxChanges", 3);
+        for (int i = 1; i <= 5; i++) {
+            store.upsert(alert("a", "Update " + i, 22.31, 73.17));
+        }
+
+        // Changes 1 and 2 have been dropped
+        assertFalse(store.changesSince(0).complete());
+        assertFalse(store.changesSince(1).complete());
+        assertTrue(store.changesSince(0).changes().isEmpty());
+
+        ActiveAlertStore.Changes tail = store.changesSince(2);
+        assertTrue(tail.complete());
+        assertEquals(List.of(3L, 4L, 5L), sequences(tail));
+        assertEquals(List.of(5L), sequences(store.changesSince(4)));
+
+        ActiveAlertStore.Changes upToDate = store.changesSince(5);
+        assertTrue(upToDate.complete());
+        assertTrue(upToDate.changes().isEmpty());
+    }
+
+    @Test
+    void restoreLogsTheRestoredAlerts() {
+        Alert restored = alert("a", "Waterlogging", 22.31, 73.17);
+        assertTrue(store.restore(List.of(restored)));
+        assertFalse(store.restore(List.of(alert("b", "Road closed", 18.52, 73.85))));
+
+        assertEquals(1, store.version());
+        assertSame(AlertCategory.WEATHER, store.changesSince(0).changes().get(0).current().getCategory());
+    }
+
+    private static List<Long> sequences(ActiveAlertStore.Changes changes) {
+        return changes.changes().stream().map(ActiveAlertStore.Change::sequence).toList();
+    }
+
+    private static Alert alert(String id, String title, double latitude, double longitude) {
+        Alert alert = new Alert(title, "", AlertCategory.WEATHER, new Location(latitude, longitude, null, null), "user");
+        alert.setId(id);
+        return alert;
+    }
+}
@@ -0,0 +1,80 @@
+package com.aroundme.index;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Lookups against the bundled places.tsv: specificity, the trailing city of an
+ * address, and ambiguous names in free text.
+ */
+class GazetteerTest {
+
+    private static Gazetteer gazetteer;
+
+    @BeforeAll
+    static void load() {
+        gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(gazetteer, "file", "gazetteer/places.tsv");
+        gazetteer.load();
+    }
+
+    @Test
+    void mostSpecificPlaceWins() {
+        assertEquals("Sayaji Baug", gazetteer.resolve("Sayaji Baug, Vadodara").name());
+        assertEquals("Alkapuri", gazetteer.resolve("Vadodara Alkapuri").name());
+    }
+
+    @Test
+    void longestNameAndAliasesMatch() {
+        assertEquals("Vadodara Railway Station", gazetteer.resolve("Near Baroda Railway Station").name());
+        assertEquals("Vasna Road", gazetteer.resolve("Vasna Bhayli Road junction").name());
+        assertEquals("Vadodara", gazetteer.resolve("baroda").name());
+    }
+
+    @Test
+    void rightmostOfEquallySpecificPlacesWins() {
+        assertEquals("Surat", gazetteer.resolve("Ahmedabad to Surat expressway").name());
+    }
+
+    @Test
+    void trailingCityOfAnAddressWins() {
+        assertEquals("Ahmedabad", gazetteer.resolveAddress("Opp. Alkapuri Arcade, Ahmedabad").city());
+        assertEquals("Anand", gazetteer.resolveAddress("Vadodara Highway, Anand").name());
+        assertEquals("Vadodara", gazetteer.resolveAddress("12 Station Road, Baroda").city());
+    }
+
+    @Test
+    void addressWithoutTrailingCityFallsBackToTheWholeAddress() {
+        Gazetteer.Place place = gazetteer.resolveAddress("Alkapuri Society, Gate 2");
+        assertEquals("Alkapuri", place.name());
+        assertEquals("Vadodara", place.city());
+
+        assertNull(gazetteer.resolveAddress("Gate 2, Block B"));
+        assertNull(gazetteer.resolveAddress(" "));
+        assertNull(gazetteer.resolveAddress(null));
+    }
+
+    @Test
+    void ambiguousNameNeedsALocalityCueInFreeText() {
+        assertNull(gazetteer.resolveInText("Anand Sharma wins state chess title"));
+        assertEquals("Anand", gazetteer.resolveInText("Fire reported in Anand market").name());
+        assertEquals("Anand", gazetteer.resolveInText("Traffic jam near Anand bus stand").name());
+        assertEquals("Vadodara", gazetteer.resolveInText("Anand Patel to speak at Vadodara event").name());
+    }
+
+    @Test
+    void ambiguousNameMatchesInLocationText() {
+        assertEquals("Anand", gazetteer.resolve("Anand").name());
+        assertEquals("Sama", gazetteer.resolve("Sama Savli Road").name());
+    }
+
+    @Test
+    void freeTextFallsThroughToLaterTexts() {
+        assertEquals("Sama", gazetteer.resolveInText("Anand Patel", "Waterlogging at Sama").name());
+        assertNull(gazetteer.resolveInText(null, "", "No places here"));
+    }
+}
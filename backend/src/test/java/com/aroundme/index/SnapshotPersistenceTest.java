@@ -0,0 +1,187 @@
+package com.aroundme.index;
+
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.ImpactLevel;
+import com.aroundme.model.Location;
+import com.aroundme.repository.AlertRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Round trip of the binary snapshot file, its checksum and format checks, and
+ * resuming the change stream from the saved token.
+ */
+class SnapshotPersistenceTest {
+
+    private static final LocalDateTime SAVED_AT = LocalDateTime.of(2024, 6, 1, 9, 10, 11, 123_456_789);
+    private static final BsonDocument TOKEN = new BsonDocument("_data", new BsonString("8266A1B2C3000000012B"));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsEveryPersistedField() throws IOException {
+        Alert full = alert("a", "Waterlogging near station");
+        full.setImpact(ImpactLevel.HIGH);
+        full.setReportCount(3);
+        full.getLocation().setAddress("Station Road, Vadodara");
+        full.getLocation().setCity("Vadodara");
+        Alert sparse = new Alert();
+        sparse.setId("b");
+        sparse.setLocation(new Location(18.52, 73.85, null, null));
+        Path path = dir.resolve("alerts.snap");
+
+        SnapshotPersistence.write(path, SAVED_AT, TOKEN, List.of(full, sparse));
+        SnapshotPersistence.Saved saved = SnapshotPersistence.read(path);
+
+        assertEquals(SAVED_AT, saved.savedAt());
+        assertEquals(TOKEN, saved.resumeToken());
+        assertEquals(2, saved.alerts().size());
+
+        Alert a = saved.alerts().get(0);
+        assertEquals("a", a.getId());
+        assertEquals("Waterlogging near station", a.getTitle());
+        assertEquals("Knee-deep water", a.getDescription());
+        assertEquals(AlertCategory.WEATHER, a.getCategory());
+        assertEquals(ImpactLevel.HIGH, a.getImpact());
+        assertEquals(22.31, a.getLocation().getLatitude());
+        assertEquals(73.17, a.getLocation().getLongitude());
+        assertEquals("Station Road, Vadodara", a.getLocation().getAddress());
+        assertEquals("Vadodara", a.getLocation().getCity());
+        assertEquals(full.getTimestamp(), a.getTimestamp());
+        assertEquals(full.getLastUpdated(), a.getLastUpdated());
+        assertEquals(3, a.getReportCount());
+        assertTrue(a.isActive());
+
+        Alert b = saved.alerts().get(1);
+        assertNull(b.getTitle());
+        assertNull(b.getCategory());
+        assertNull(b.getImpact());
+        assertNull(b.getTimestamp());
+        assertNull(b.getReportCount());
+        assertNull(b.getLocation().getCity());
+    }
+
+    @Test
+    void fileWithoutResumeTokenRoundTrips() throws IOException {
+        Path path = dir.resolve("alerts.snap");
+        SnapshotPersistence.write(path, SAVED_AT, null, List.of(alert("a", "Road closed")));
+
+        SnapshotPersistence.Saved saved = SnapshotPersistence.read(path);
+
+        assertNull(saved.resumeToken());
+        assertEquals(1, saved.alerts().size());
+    }
+
+    @Test
+    void alertsWithoutLocationAreNotSaved() throws IOException {
+        Alert unlocated = alert("b", "Somewhere");
+        unlocated.setLocation(null);
+        Path path = dir.resolve("alerts.snap");
+
+        SnapshotPersistence.write(path, SAVED_AT, null, List.of(alert("a", "Road closed"), unlocated));
+
+        assertEquals(List.of("a"),
+                SnapshotPersistence.read(path).alerts().stream().map(Alert::getId).toList());
+        assertFalse(Files.exists(dir.resolve("alerts.snap.tmp")));
+    }
+
+    @Test
+    void flippedByteFailsTheChecksum() throws IOException {
+        Path path = dir.resolve("alerts.snap");
+        SnapshotPersistence.write(path, SAVED_AT, TOKEN, List.of(alert("a", "Road closed")));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> SnapshotPersistence.read(path));
+        assertEquals("checksum mismatch", e.getMessage());
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path path = dir.resolve("alerts.snap");
+        SnapshotPersistence.write(path, SAVED_AT, TOKEN, List.of(alert("a", "Road closed")));
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(IOException.class, () -> SnapshotPersistence.read(path));
+
+        Files.write(path, Arrays.copyOf(bytes, 12));
+        assertEquals("truncated file",
+                assertThrows(IOException.class, () -> SnapshotPersistence.read(path)).getMessage());
+    }
+
+    @Test
+    void formatOneFileIsRejected() throws IOException {
+        // A well-formed file from before the resume token was added
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(0x414D534E);
+        out.writeInt(1);
+        out.writeLong(SAVED_AT.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(0);
+        out.writeInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        out.writeLong(crc.getValue());
+        Path path = dir.resolve("alerts.snap");
+        Files.write(path, payload.toByteArray());
+
+        IOException e = assertThrows(IOException.class, () -> SnapshotPersistence.read(path));
+        assertEquals("unsupported format", e.getMessage());
+    }
+
+    @Test
+    void restoreResumesTheChangeStreamFromTheSavedToken() throws IOException {
+        Path path = dir.resolve("alerts.snap");
+        SnapshotPersistence.write(path, SAVED_AT, TOKEN, List.of(alert("a", "Road closed")));
+
+        ActiveAlertStore store = new ActiveAlertStore(null,
+                new DefaultListableBeanFactory().getBeanProvider(ActiveAlertListener.class));
+        ReflectionTestUtils.setField(store, "maxChanges", 1000);
+        AlertChangeStreamWatcher watcher = mock(AlertChangeStreamWatcher.class);
+        when(watcher.isEnabled()).thenReturn(true);
+        SnapshotPersistence persistence = new SnapshotPersistence(store, mock(AlertRepository.class), watcher);
+        ReflectionTestUtils.setField(persistence, "enabled", true);
+        ReflectionTestUtils.setField(persistence, "file", path.toString());
+
+        persistence.restore();
+
+        assertEquals(1, store.snapshot().size());
+        verify(watcher).resumeFrom(TOKEN);
+        assertNull(ReflectionTestUtils.getField(persistence, "pendingCatchUp"));
+    }
+
+    private static Alert alert(String id, String title) {
+        Alert alert = new Alert(title, "Knee-deep water", AlertCategory.WEATHER,
+                new Location(22.31, 73.17, null, null), "user");
+        alert.setId(id);
+        return alert;
+    }
+}
@@ -0,0 +1,108 @@
+package com.aroundme.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The SIMD pass must select exactly the rows the scalar loop does.
+ */
+class VectorDistanceKernelTest {
+
+    private static final double RADIUS_ANGLE = 5.0 / ActiveAlertSnapshot.EARTH_RADIUS_KM;
+
+    @Test
+    void matchesScalarForEveryRangeLength() {
+        Random random = new Random(42);
+        Columns columns = Columns.around(random, 64, 19.07, 72.88, 0.08);
+
+        // Every length from empty to several vector widths, so all tail sizes are covered
+        for (int from = 0; from < 4; from++) {
+            for (int to = from; to <= columns.size(); to++) {
+                assertSameRows(columns, from, to, 19.07, 72.88, RADIUS_ANGLE);
+            }
+        }
+    }
+
+    @Test
+    void matchesScalarAcrossTheAntimeridian() {
+        Random random = new Random(7);
+        Columns columns = Columns.around(random, 37, -16.5, 179.98, 0.1);
+
+        assertSameRows(columns, 0, columns.size(), -16.5, 179.99, RADIUS_ANGLE);
+        assertSameRows(columns, 0, columns.size(), -16.5, -179.99, RADIUS_ANGLE);
+        assertSameRows(columns, 3, columns.size() - 2, -16.5, -180.0, RADIUS_ANGLE);
+    }
+
+    @Test
+    void matchesScalarForRandomQueries() {
+        Random random = new Random(1234);
+        for (int round = 0; round < 200; round++) {
+            Columns columns = Columns.around(random, 1 + random.nextInt(100),
+                    random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180, 2);
+            double angle = random.nextDouble() * 200 / ActiveAlertSnapshot.EARTH_RADIUS_KM;
+            int from = random.nextInt(columns.size());
+            int to = from + random.nextInt(columns.size() - from + 1);
+
+            Columns.Point query = columns.somePoint(random);
+            assertSameRows(columns, from, to, query.lat(), query.lon(), angle);
+        }
+    }
+
+    private static void assertSameRows(Columns columns, int from, int to, double lat, double lon, double angle) {
+        double lat0 = Math.toRadians(lat);
+        double lon0 = Math.toRadians(lon);
+        double cos0 = Math.cos(lat0);
+        double maxAngleSq = angle * angle;
+
+        int[] scalar = new int[columns.size()];
+        int scalarHits = ActiveAlertSnapshot.scanScalar(columns.latRad, columns.lonRad, columns.cosLat,
+                from, to, lat0, lon0, cos0, maxAngleSq, scalar, 0);
+
+        int[] vector = new int[columns.size()];
+        int vectorHits = VectorDistanceKernel.scan(columns.latRad, columns.lonRad, columns.cosLat,
+                from, to, lat0, lon0, cos0, maxAngleSq, vector);
+
+        assertArrayEquals(Arrays.copyOf(scalar, scalarHits), Arrays.copyOf(vector, vectorHits),
+                () -> "rows " + from + ".." + to + " around " + lat + "," + lon);
+    }
+
+    private record Columns(double[] latRad, double[] lonRad, double[] cosLat) {
+
+        record Point(double lat, double lon) {
+        }
+
+        static Columns around(Random random, int n, double lat, double lon, double spreadDegrees) {
+            double[] lats = new double[n];
+            for (int i = 0; i < n; i++) {
+                lats[i] = lat + (random.nextDouble() - 0.5) * spreadDegrees;
+            }
+            Arrays.sort(lats);
+
+            double[] latRad = new double[n];
+            double[] lonRad = new double[n];
+            double[] cosLat = new double[n];
+            for (int i = 0; i < n; i++) {
+                double l = lon + (random.nextDouble() - 0.5) * spreadDegrees;
+                // Wrap into [-180, 180) the way stored longitudes are
+                l = ((l + 540) % 360) - 180;
+                latRad[i] = Math.toRadians(lats[i]);
+                lonRad[i] = Math.toRadians(l);
+                cosLat[i] = Math.cos(latRad[i]);
+            }
+            return new Columns(latRad, lonRad, cosLat);
+        }
+
+        int size() {
+            return latRad.length;
+        }
+
+        Point somePoint(Random random) {
+            int row = random.nextInt(size());
+            return new Point(Math.toDegrees(latRad[row]), Math.toDegrees(lonRad[row]));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.ImportReport;
+import com.aroundme.dto.SubmitAlertRequest;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.Location;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * CSV and NDJSON parsing, per-line error reporting and idempotency keys of the
+ * bulk import, with the write path mocked out.
+ */
+class AlertImportServiceTest {
+
+    private static final String HEADER = "title,description,category,latitude,longitude,address";
+
+    private final AlertService alertService = mock(AlertService.class);
+    private final AlertWriteService writeService = mock(AlertWriteService.class);
+    private final List<SubmitAlertRequest> requests = new ArrayList<>();
+    private final List<List<Alert>> batches = new ArrayList<>();
+    private Map<Integer, String> writeErrors = Map.of();
+    private AlertImportService importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = new AlertImportService(alertService, writeService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importer, "batchSize", 1000);
+        ReflectionTestUtils.setField(importer, "maxReportedErrors", 1000);
+
+        when(alertService.toAlert(any())).thenAnswer(invocation -> {
+            SubmitAlertRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return new Alert(request.getTitle(), request.getDescription(), request.getCategory(),
+                    new Location(request.getLatitude(), request.getLongitude(), request.getAddress(), null),
+                    "Anonymous");
+        });
+        // The importer reuses its batch list, so keep a copy
+        when(writeService.writeBatch(anyList())).thenAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<List<Alert>>getArgument(0)));
+            return writeErrors;
+        });
+    }
+
+    @Test
+    void csvQuotedFieldsKeepCommasAndEscapedQuotes() throws IOException {
+        ImportReport report = importCsv(null,
+                HEADER,
+                "\"Tree fallen, road blocked\",\"Residents say \"\"avoid\"\" the lane\",traffic,22.31,73.17,"
+                        + "\"Alkapuri, Vadodara\"");
+
+        assertEquals(1, report.getImported());
+        SubmitAlertRequest request = requests.get(0);
+        assertEquals("Tree fallen, road blocked", request.getTitle());
+        assertEquals("Residents say \"avoid\" the lane", request.getDescription());
+        assertEquals(AlertCategory.TRAFFIC, request.getCategory());
+        assertEquals(22.31, request.getLatitude());
+        assertEquals("Alkapuri, Vadodara", request.getAddress());
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeaderName() throws IOException {
+        importCsv(null,
+                "Longitude, LATITUDE,Category,Title,Description",
+                "73.17,22.31,weather,Flooding,Knee-deep water");
+
+        SubmitAlertRequest request = requests.get(0);
+        assertEquals("Flooding", request.getTitle());
+        assertEquals(22.31, request.getLatitude());
+        assertEquals(73.17, request.getLongitude());
+        assertNull(request.getAddress());
+    }
+
+    @Test
+    void badLinesAreReportedWithTheirLineNumbers() throws IOException {
+        ImportReport report = importCsv(null,
+                HEADER,
+                "Pothole,Deep pothole near gate,road_work,22.31,73.17,",
+                ",Missing title,traffic,22.31,73.17,",
+                "",
+                "Flood,Water everywhere,flood,22.31,73.17,",
+                "Crash,Two cars,traffic,north,73.17,",
+                "\"Unterminated,Two cars,traffic,22.31,73.17,",
+                "Signal out,Lights dead at junction,traffic,22.31,73.17,");
+
+        assertEquals(6, report.getLines());
+        assertEquals(2, report.getImported());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(3L, 5L, 6L, 7L),
+                report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+        assertEquals("Title is required", report.getErrors().get(0).getMessage());
+        assertTrue(report.getErrors().get(1).getMessage().startsWith("Unparseable record"));
+        assertTrue(report.getErrors().get(3).getMessage().contains("unterminated quoted field"));
+    }
+
+    @Test
+    void ndjsonReportsMalformedLines() throws IOException {
+        String body = String.join("\n",
+                "{\"title\":\"Pothole\",\"description\":\"Deep\",\"category\":\"ROAD_WORK\",\"latitude\":22.3,\"longitude\":73.1}",
+                "{\"title\":\"Broken",
+                "{\"title\":\"Signal out\",\"description\":\"Dead\",\"category\":\"TRAFFIC\",\"latitude\":22.3,\"longitude\":73.1}");
+
+        ImportReport report = importer.importAlerts(stream(body), AlertImportService.Format.NDJSON, null);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void writeErrorsMapBackToSourceLines() throws IOException {
+        writeErrors = Map.of(1, "Document failed validation");
+
+        ImportReport report = importCsv(null,
+                HEADER,
+                "Pothole,Deep pothole,road_work,22.31,73.17,",
+                ",Missing title,traffic,22.31,73.17,",
+                "Signal out,Lights dead,traffic,22.31,73.17,");
+
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(3L, 4L), report.getErrors().stream().map(ImportReport.LineError::getLine).toList());
+        assertEquals("Document failed validation", report.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void reimportWithTheSameKeyReusesTheIds() throws IOException {
+        String[] csv = {
+                HEADER,
+                "Pothole,Deep pothole,road_work,22.31,73.17,",
+                "Signal out,Lights dead,traffic,22.31,73.17,"};
+
+        importCsv("import-42", csv);
+        importCsv("import-42", csv);
+        importCsv("import-43", csv);
+        importCsv(null, csv);
+
+        List<String> first = ids(batches.get(0));
+        assertEquals(2, first.stream().distinct().count());
+        assertEquals(first, ids(batches.get(1)));
+        assertNotEquals(first, ids(batches.get(2)));
+        assertTrue(ids(batches.get(3)).stream().allMatch(id -> id == null));
+    }
+
+    @Test
+    void writesInBatches() throws IOException {
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+
+        ImportReport report = importCsv(null,
+                HEADER,
+                "A,a,traffic,22.31,73.17,",
+                "B,b,traffic,22.31,73.17,",
+                "C,c,traffic,22.31,73.17,");
+
+        assertEquals(3, report.getImported());
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+    }
+
+    private ImportReport importCsv(String idempotencyKey, String... lines) throws IOException {
+        return importer.importAlerts(stream(String.join("\n", lines)), AlertImportService.Format.CSV, idempotencyKey);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> ids(List<Alert> alerts) {
+        return alerts.stream().map(Alert::getId).toList();
+    }
+}
@@ -0,0 +1,231 @@
+package com.aroundme.service;
+
+import com.aroundme.dto.TrendResponse;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.AlertTrendBucket;
+import com.aroundme.model.ImpactLevel;
+import com.aroundme.model.Location;
+import com.aroundme.model.TrendGranularity;
+import com.aroundme.repository.AlertTrendRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bucketing and flushing of trend counts, and the period comparison read back
+ * from the rollups.
+ */
+class AlertTrendServiceTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 6, 1, 9, 10);
+
+    private final AlertTrendRepository repository = mock(AlertTrendRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private AlertTrendService trends;
+
+    @BeforeEach
+    void setUp() {
+        trends = new AlertTrendService(repository, mongoTemplate);
+        ReflectionTestUtils.setField(trends, "enabled", true);
+    }
+
+    @Test
+    void countsNewAlertsIntoHourlyAndDailyBuckets() {
+        BulkOperations bulk = bulk();
+        trends.recordNewAlert(alert("Pune ", ImpactLevel.HIGH, MORNING));
+        trends.recordNewAlert(alert("PUNE", null, MORNING.plusMinutes(40)));
+        trends.recordNewAlert(alert("Pune", ImpactLevel.HIGH, MORNING.plusHours(1)));
+
+        trends.flush();
+
+        Map<String, Document> incs = flushed(bulk, 3);
+        Document hour = incs.get("HOURLY|pune|TRAFFIC|2024-06-01T09:00");
+        assertEquals(2L, hour.get("alerts"));
+        assertEquals(2L, hour.get("reports"));
+        assertEquals(1L, hour.get("high"));
+        assertEquals(1L, hour.get("low"));
+        assertEquals(1L, incs.get("HOURLY|pune|TRAFFIC|2024-06-01T10:00").get("alerts"));
+
+        Document day = incs.get("DAILY|pune|TRAFFIC|2024-06-01T00:00");
+        assertEquals(3L, day.get("alerts"));
+        assertEquals(2L, day.get("high"));
+    }
+
+    @Test
+    void mergedReportCountsAsReportOnly() {
+        BulkOperations bulk = bulk();
+        trends.recordMergedReport(alert("Pune", ImpactLevel.HIGH, MORNING));
+
+        trends.flush();
+
+        for (Document inc : flushed(bulk, 2).values()) {
+            assertEquals(0L, inc.get("alerts"));
+            assertEquals(1L, inc.get("reports"));
+            assertEquals(0L, inc.get("high"));
+        }
+    }
+
+    @Test
+    void partialFailureRequeuesOnlyTheFailedBucket() {
+        BulkOperations first = bulk();
+        trends.recordNewAlert(alert("Pune", ImpactLevel.HIGH, MORNING));
+        doThrow(bulkError(1)).when(first).execute();
+
+        trends.flush();
+        String failed = idAt(first, 2, 1);
+
+        BulkOperations second = bulk();
+        trends.flush();
+
+        Map<String, Document> retried = flushed(second, 1);
+        assertEquals(Set.of(failed), retried.keySet());
+        // Applied once by the first flush, so not counted twice
+        assertEquals(1L, retried.get(failed).get("alerts"));
+    }
+
+    @Test
+    void failureBeforeExecutionRequeuesTheWholeBatch() {
+        BulkOperations first = bulk();
+        trends.recordNewAlert(alert("Pune", ImpactLevel.HIGH, MORNING));
+        doThrow(new DataAccessResourceFailureException("connection refused")).when(first).execute();
+        trends.flush();
+
+        BulkOperations second = bulk();
+        trends.recordNewAlert(alert("Pune", ImpactLevel.HIGH, MORNING));
+        trends.flush();
+
+        for (Document inc : flushed(second, 2).values()) {
+            assertEquals(2L, inc.get("alerts"));
+        }
+    }
+
+    @Test
+    void reversedAlertCancelsOut() {
+        BulkOperations bulk = bulk();
+        Alert alert = alert("Pune", ImpactLevel.HIGH, MORNING);
+        trends.recordNewAlert(alert);
+        trends.recordNewAlert(alert);
+        trends.reverseNewAlert(alert);
+
+        trends.flush();
+
+        for (Document inc : flushed(bulk, 2).values()) {
+            assertEquals(1L, inc.get("alerts"));
+            assertEquals(1L, inc.get("high"));
+        }
+    }
+
+    @Test
+    void comparesWithThePreviousPeriodOfTheSameLength() {
+        LocalDate today = LocalDate.now();
+        when(repository.findByGranularityAndCityAndBucketStartBetweenOrderByBucketStart(
+                eq(TrendGranularity.DAILY), eq("pune"), any()))
+                .thenReturn(List.of(
+                                bucket(today.minusDays(1), AlertCategory.TRAFFIC, 3),
+                                bucket(today.minusDays(1), AlertCategory.WEATHER, 2),
+                                bucket(today, AlertCategory.TRAFFIC, 5)),
+                        List.of(bucket(today.minusDays(9), AlertCategory.TRAFFIC, 8)));
+
+        TrendResponse response = trends.getTrends(" Pune", null, TrendGranularity.DAILY, 7);
+
+        assertEquals(today.plusDays(1).atStartOfDay(), response.getTo());
+        assertEquals(today.minusDays(6).atStartOfDay(), response.getFrom());
+        assertEquals(2, response.getBuckets().size());
+        assertEquals(5, response.getBuckets().get(0).getAlerts());
+        assertEquals(10, response.getTotalAlerts());
+        assertEquals(8, response.getPreviousPeriodAlerts());
+        assertEquals(25.0, response.getChangePercent());
+    }
+
+    @Test
+    void noChangeWithoutAPreviousPeriod() {
+        when(repository.findByGranularityAndCityAndCategoryAndBucketStartBetweenOrderByBucketStart(
+                eq(TrendGranularity.HOURLY), eq("pune"), eq(AlertCategory.TRAFFIC), any()))
+                .thenReturn(List.of(bucket(LocalDate.now(), AlertCategory.TRAFFIC, 4)), List.of());
+
+        TrendResponse response = trends.getTrends("Pune", AlertCategory.TRAFFIC, TrendGranularity.HOURLY, 1);
+
+        assertEquals(4, response.getTotalAlerts());
+        assertEquals(0, response.getPreviousPeriodAlerts());
+        assertNull(response.getChangePercent());
+    }
+
+    private BulkOperations bulk() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AlertTrendBucket.class)).thenReturn(bulk);
+        return bulk;
+    }
+
+    // $inc documents of the upserts sent to the bulk, by bucket id
+    private static Map<String, Document> flushed(BulkOperations bulk, int upserts) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(upserts)).upsert(queries.capture(), updates.capture());
+        return IntStream.range(0, upserts).boxed().collect(Collectors.toMap(
+                i -> (String) queries.getAllValues().get(i).getQueryObject().get("_id"),
+                i -> (Document) updates.getAllValues().get(i).getUpdateObject().get("$inc")));
+    }
+
+    private static String idAt(BulkOperations bulk, int upserts, int index) {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(upserts)).upsert(queries.capture(), any(Update.class));
+        return (String) queries.getAllValues().get(index).getQueryObject().get("_id");
+    }
+
+    private static Alert alert(String city, ImpactLevel impact, LocalDateTime time) {
+        Alert alert = new Alert("Road closed", "", AlertCategory.TRAFFIC, new Location(18.52, 73.85, null, city), "user");
+        alert.setImpact(impact);
+        alert.setTimestamp(time);
+        return alert;
+    }
+
+    private static AlertTrendBucket bucket(LocalDate day, AlertCategory category, long alerts) {
+        AlertTrendBucket bucket = new AlertTrendBucket();
+        bucket.setGranularity(TrendGranularity.DAILY);
+        bucket.setCity("pune");
+        bucket.setCategory(category);
+        bucket.setBucketStart(day.atStartOfDay());
+        bucket.setAlerts(alerts);
+        bucket.setReports(alerts);
+        return bucket;
+    }
+
+    private static BulkOperationException bulkError(int index) {
+        return new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(2, "error", new BsonDocument(), index)),
+                null, new ServerAddress(), Set.of()));
+    }
+}
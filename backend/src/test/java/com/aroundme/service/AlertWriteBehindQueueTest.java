@@ -0,0 +1,205 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Journal replay, duplicate merges and retries of the write-behind queue,
+ * against a mocked MongoTemplate.
+ */
+class AlertWriteBehindQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ActiveAlertStore store = mock(ActiveAlertStore.class);
+    private final AlertTrendService trends = mock(AlertTrendService.class);
+    private final BulkOperations inserts = mock(BulkOperations.class);
+    private final BulkOperations merges = mock(BulkOperations.class);
+
+    private Path journal;
+    private AlertWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        journal = dir.resolve("journal.ndjson");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Alert.class)).thenReturn(inserts, merges);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (queue != null) queue.close();
+    }
+
+    @Test
+    void replaysJournalAndAddsLandedAlertsToTheStore() throws Exception {
+        Files.write(journal, List.of(
+                objectMapper.writeValueAsString(alert("a", 1)),
+                "not json",
+                objectMapper.writeValueAsString(alert("b", 1)),
+                objectMapper.writeValueAsString(alert("a", 2))), StandardCharsets.UTF_8);
+
+        queue = open(200);
+        queue.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Alert>> landed = ArgumentCaptor.forClass(Collection.class);
+        verify(store, timeout(1000)).upsertAll(landed.capture());
+        assertEquals(List.of("a", "b"), landed.getValue().stream().map(Alert::getId).toList());
+        assertEquals(2, landed.getValue().iterator().next().getReportCount());
+        assertNull(queue.findPending("a"));
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void duplicateIsMergedWithMax() throws Exception {
+        queue = open(200);
+        queue.enqueue(alert("a", 3));
+        doThrow(bulkError(11000, 0)).when(inserts).execute();
+
+        queue.flush();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(merges).updateOne(any(Query.class), update.capture());
+        Document max = (Document) update.getValue().getUpdateObject().get("$max");
+        assertEquals(3, max.get("reportCount"));
+        assertNotNull(max.get("lastUpdated"));
+        assertNull(queue.findPending("a"));
+        verify(store, never()).remove(any());
+        verify(store, never()).upsertAll(anyCollection());
+    }
+
+    @Test
+    void failedFlushIsRetriedIdempotently() throws Exception {
+        queue = open(200);
+        queue.enqueue(alert("a", 1));
+
+        // The first attempt reaches Mongo but the acknowledgement is lost
+        doThrow(new DataAccessResourceFailureException("connection reset")).when(inserts).execute();
+        queue.flush();
+        assertNotNull(queue.findPending("a"));
+        assertEquals(1, Files.readAllLines(journal).size());
+
+        BulkOperations retry = mock(BulkOperations.class);
+        BulkOperations retryMerges = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Alert.class)).thenReturn(retry, retryMerges);
+        doThrow(bulkError(11000, 0)).when(retry).execute();
+        queue.flush();
+
+        verify(retryMerges).updateOne(any(Query.class), any(Update.class));
+        assertNull(queue.findPending("a"));
+        assertEquals(0, Files.size(journal));
+        verify(trends, never()).reverseNewAlert(any());
+    }
+
+    @Test
+    void droppedAlertIsTakenBackOut() throws Exception {
+        queue = open(200);
+        Alert alert = alert("a", 1);
+        queue.enqueue(alert);
+        doThrow(bulkError(121, 0)).when(inserts).execute();
+
+        queue.flush();
+
+        assertNull(queue.findPending("a"));
+        verify(store).remove("a");
+        verify(trends).reverseNewAlert(alert);
+    }
+
+    @Test
+    void concurrentSubmissionsAreAllJournaled() throws Exception {
+        queue = open(100_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> submissions = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            submissions.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    queue.enqueue(alert(thread + "-" + i, 1));
+                }
+            }));
+        }
+        for (Future<?> submission : submissions) {
+            submission.get();
+        }
+        pool.shutdown();
+
+        assertEquals(400, Files.readAllLines(journal).size());
+        verify(inserts, never()).insert(anyList());
+    }
+
+    private AlertWriteBehindQueue open(int batchSize) throws Exception {
+        AlertWriteBehindQueue queue = new AlertWriteBehindQueue(
+                mongoTemplate, objectMapper, new SimpleMeterRegistry(), store, trends);
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "batchSize", batchSize);
+        ReflectionTestUtils.setField(queue, "journalFile", journal.toString());
+        ReflectionTestUtils.setField(queue, "compactBytes", 1L << 20);
+        queue.open();
+        return queue;
+    }
+
+    private static Alert alert(String id, int reportCount) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setTitle("Road closed " + id);
+        alert.setReportCount(reportCount);
+        alert.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        alert.setLastUpdated(LocalDateTime.of(2024, 1, 1, 12, reportCount));
+        return alert;
+    }
+
+    private static BulkOperationException bulkError(int code, int index) {
+        return new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(code, "error " + code, new BsonDocument(), index)),
+                null, new ServerAddress(), Set.of()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.aroundme.service;
+
+import com.aroundme.index.ActiveAlertListener;
+import com.aroundme.index.ActiveAlertStore;
+import com.aroundme.model.Alert;
+import com.aroundme.model.AlertCategory;
+import com.aroundme.model.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Radius, time window and text similarity gates of incident matching,
+ * against a real active store.
+ */
+class IncidentClusteringServiceTest {
+
+    private static final double LAT = 18.5204;
+    private static final double LON = 73.8567;
+    // One metre of latitude, in degrees
+    private static final double METRE = 1 / 111_195.0;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    private ActiveAlertStore store;
+    private IncidentClusteringService clustering;
+
+    @BeforeEach
+    void setUp() {
+        store = new ActiveAlertStore(null,
+                new DefaultListableBeanFactory().getBeanProvider(ActiveAlertListener.class));
+        ReflectionTestUtils.setField(store, "maxChanges", 1000);
+
+        clustering = new IncidentClusteringService(store);
+        ReflectionTestUtils.setField(clustering, "enabled", true);
+        ReflectionTestUtils.setField(clustering, "radiusMeters", 300.0);
+        ReflectionTestUtils.setField(clustering, "windowMinutes", 60L);
+        ReflectionTestUtils.setField(clustering, "minSimilarity", 0.35);
+    }
+
+    @Test
+    void matchesSimilarReportNearbyWithinWindow() {
+        store.upsert(alert("incident", "Water logging on FC Road", 200, NOW.minusMinutes(30)));
+
+        Alert match = clustering.findIncident(alert(null, "Heavy water logging FC Road", 0, NOW));
+
+        assertNotNull(match);
+        assertEquals("incident", match.getId());
+    }
+
+    @Test
+    void ignoresIncidentOutsideRadius() {
+        store.upsert(alert("incident", "Water logging on FC Road", 400, NOW));
+
+        assertNull(clustering.findIncident(alert(null, "Water logging on FC Road", 0, NOW)));
+    }
+
+    @Test
+    void ignoresIncidentOutsideWindow() {
+        store.upsert(alert("incident", "Water logging on FC Road", 0, NOW.minusMinutes(61)));
+
+        assertNull(clustering.findIncident(alert(null, "Water logging on FC Road", 0, NOW)));
+    }
+
+    @Test
+    void windowRunsFromLastUpdate() {
+        Alert incident = alert("incident", "Water logging on FC Road", 0, NOW.minusHours(5));
+        incident.setLastUpdated(NOW.minusMinutes(10));
+        store.upsert(incident);
+
+        assertNotNull(clustering.findIncident(alert(null, "Water logging on FC Road", 0, NOW)));
+    }
+
+    @Test
+    void similarityThresholdIsInclusive() {
+        // {water, logging, fc, road} vs {water, main, junction} : 1 / 6 shared
+        store.upsert(alert("weak", "Water logging FC Road", 0, NOW));
+        assertNull(clustering.findIncident(alert(null, "Water main junction", 0, NOW)));
+
+        // {road, closed, crash} vs {road, closed, tree, fallen} : 2 / 5 shared, above 0.35
+        store.upsert(alert("strong", "Road closed by crash", 0, NOW));
+        Alert match = clustering.findIncident(alert(null, "Road closed, tree fallen", 0, NOW));
+        assertNotNull(match);
+        assertEquals("strong", match.getId());
+
+        ReflectionTestUtils.setField(clustering, "minSimilarity", 0.4);
+        assertNotNull(clustering.findIncident(alert(null, "Road closed, tree fallen", 0, NOW)));
+        ReflectionTestUtils.setField(clustering, "minSimilarity", 0.41);
+        assertNull(clustering.findIncident(alert(null, "Road closed, tree fallen", 0, NOW)));
+    }
+
+    @Test
+    void ignoresOtherCategories() {
+        Alert incident = alert("incident", "Water logging on FC Road", 0, NOW);
+        incident.setCategory(AlertCategory.ROAD_WORK);
+        store.upsert(incident);
+
+        assertNull(clustering.findIncident(alert(null, "Water logging on FC Road", 0, NOW)));
+    }
+
+    @Test
+    void prefersClosestOfEquallySimilarIncidents() {
+        store.upsertAll(List.of(
+                alert("far", "Water logging on FC Road", 250, NOW),
+                alert("near", "Water logging on FC Road", 50, NOW)));
+
+        assertEquals("near", clustering.findIncident(alert(null, "Water logging on FC Road", 0, NOW)).getId());
+    }
+
+    @Test
+    void reportWithoutLocationIsNew() {
+        store.upsert(alert("incident", "Water logging on FC Road", 0, NOW));
+        Alert report = alert(null, "Water logging on FC Road", 0, NOW);
+        report.setLocation(null);
+
+        assertNull(clustering.findIncident(report));
+    }
+
+    private static Alert alert(String id, String title, double metresNorth, LocalDateTime time) {
+        Alert alert = new Alert(title, "", AlertCategory.TRAFFIC,
+                new Location(LAT + metresNorth * METRE, LON, null, "Pune"), "user");
+        alert.setId(id);
+        alert.setTimestamp(time);
+        alert.setLastUpdated(time);
+        return alert;
+    }
+}
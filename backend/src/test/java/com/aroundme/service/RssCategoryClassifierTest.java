@@ -0,0 +1,99 @@
+package com.aroundme.service;
+
+import com.aroundme.model.AlertCategory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Priors and likelihoods are smoothed, and a single trained category is not
+ * enough to predict with.
+ */
+class RssCategoryClassifierTest {
+
+    private static final String[] TRAFFIC = {
+            "Heavy traffic jam on the highway after accident",
+            "Traffic diverted as flyover closed for repairs",
+            "Long queues at toll plaza, traffic moving slowly",
+            "Signal failure causes traffic congestion at junction",
+    };
+
+    private static final String[] WEATHER = {
+            "Heavy rain and thunderstorm warning for the city",
+            "IMD issues orange alert for heavy rainfall",
+            "Cyclone expected to bring strong winds and rain",
+            "Heatwave conditions to continue, temperature above 44",
+    };
+
+    @Test
+    void predictsNothingUntilTwoCategoriesAreTrained() {
+        RssCategoryClassifier classifier = new RssCategoryClassifier();
+        assertNull(classifier.predict("Traffic jam"));
+
+        for (int i = 0; i < 20; i++) {
+            learn(classifier, AlertCategory.TRAFFIC, TRAFFIC);
+        }
+        assertNull(classifier.predict("Music festival tickets sold out"));
+
+        for (int i = 0; i < RssCategoryClassifier.MIN_CATEGORY_DOCUMENTS - 1; i++) {
+            classifier.learn(WEATHER[i % WEATHER.length], AlertCategory.WEATHER);
+        }
+        assertNull(classifier.predict("Traffic jam"));
+
+        classifier.learn(WEATHER[0], AlertCategory.WEATHER);
+        assertEquals(AlertCategory.TRAFFIC, classifier.predict("Traffic jam at junction").category());
+    }
+
+    @Test
+    void untrainedCategoriesKeepSomeProbability() {
+        RssCategoryClassifier classifier = new RssCategoryClassifier();
+        for (int i = 0; i < 20; i++) {
+            learn(classifier, AlertCategory.TRAFFIC, TRAFFIC);
+            learn(classifier, AlertCategory.WEATHER, WEATHER);
+        }
+
+        // Nothing in the text was seen in training: the smoothed priors decide,
+        // and the seven empty categories share what is left
+        RssCategoryClassifier.Prediction unrelated = classifier.predict("Music festival tickets sold out");
+        assertTrue(unrelated.confidence() < 0.5, "unrelated: " + unrelated);
+    }
+
+    @Test
+    void separatesTrainedCategories() {
+        RssCategoryClassifier classifier = new RssCategoryClassifier();
+        for (int i = 0; i < 20; i++) {
+            learn(classifier, AlertCategory.TRAFFIC, TRAFFIC);
+            learn(classifier, AlertCategory.WEATHER, WEATHER);
+        }
+
+        RssCategoryClassifier.Prediction traffic = classifier.predict("Traffic congestion near toll plaza");
+        assertEquals(AlertCategory.TRAFFIC, traffic.category());
+        assertTrue(traffic.confidence() > 0.8, "traffic: " + traffic);
+
+        RssCategoryClassifier.Prediction weather = classifier.predict("Orange alert for thunderstorm and rainfall");
+        assertEquals(AlertCategory.WEATHER, weather.category());
+        assertTrue(weather.confidence() > 0.8, "weather: " + weather);
+    }
+
+    @Test
+    void unseenFeaturesDoNotRuleOutACategory() {
+        RssCategoryClassifier classifier = new RssCategoryClassifier();
+        for (int i = 0; i < 2; i++) {
+            learn(classifier, AlertCategory.TRAFFIC, TRAFFIC);
+            learn(classifier, AlertCategory.WEATHER, WEATHER);
+        }
+
+        // "rain" is only in WEATHER and "jam" only in TRAFFIC; neither wins outright
+        RssCategoryClassifier.Prediction mixed = classifier.predict("Rain jam");
+        assertTrue(mixed.confidence() > 0 && mixed.confidence() < 0.8, "mixed: " + mixed);
+        assertEquals(16, classifier.trainingSize());
+    }
+
+    private static void learn(RssCategoryClassifier classifier, AlertCategory category, String[] texts) {
+        for (String text : texts) {
+            classifier.learn(text, category);
+        }
+    }
+}
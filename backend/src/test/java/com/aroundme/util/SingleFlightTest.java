@@ -0,0 +1,134 @@
+package com.aroundme.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent callers with one key share a single execution, including its failure.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        List<Future<String>> results = submitAll(() -> {
+            runs.incrementAndGet();
+            await(release);
+            return "briefing";
+        });
+        awaitCalls(CALLERS);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("briefing", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, flight.executions());
+        assertEquals(1.0 - 1.0 / CALLERS, flight.coalescingRatio(), 1e-9);
+    }
+
+    @Test
+    void waitersGetTheLeadersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+
+        List<Future<String>> results = submitAll(() -> {
+            await(release);
+            throw failure;
+        });
+        awaitCalls(CALLERS);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, flight.executions());
+    }
+
+    @Test
+    void nothingIsCachedAfterCompletion() {
+        assertEquals("a", flight.execute("key", () -> "a"));
+        assertEquals("b", flight.execute("key", () -> "b"));
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals("c", flight.execute("key", () -> "c"));
+        assertEquals(4, flight.executions());
+        assertEquals(0.0, flight.coalescingRatio());
+    }
+
+    @Test
+    void differentKeysRunIndependently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Future<String> first = pool.submit(() -> flight.execute("a", () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+            return "a";
+        }));
+        Future<String> second = pool.submit(() -> flight.execute("b", () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+            return "b";
+        }));
+
+        assertEquals("a", first.get(5, TimeUnit.SECONDS));
+        assertEquals("b", second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, flight.executions());
+    }
+
+    private List<Future<String>> submitAll(Supplier<String> work) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> flight.execute("key", work)));
+        }
+        return results;
+    }
+
+    // calls() counts a caller just before it joins the flight; the pause covers that gap
+    private void awaitCalls(int n) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.calls() < n) {
+            assertTrue(System.nanoTime() < deadline, "callers did not arrive");
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}